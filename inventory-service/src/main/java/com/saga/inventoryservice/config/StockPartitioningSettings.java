@@ -0,0 +1,20 @@
+package com.saga.inventoryservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "inventory.stock-partitioning")
+public class StockPartitioningSettings {
+    
+    private boolean enabled = false;
+    
+    // Quantidade de linhas de estoque por produto
+    private int buckets = 8;
+    
+    private long rebalanceIntervalMs = 5000;
+    
+    // Rebalancear quando algum bucket cair abaixo desta fração da cota justa (total / buckets)
+    private double rebalanceThreshold = 0.5;
+}
@@ -19,18 +19,20 @@ public class InventoryController {
     private final InventoryService inventoryService;
     
     @PostMapping("/update")
-    public ResponseEntity<Boolean> updateInventory(@RequestParam("productId") String productId,
+    public ResponseEntity<Boolean> updateInventory(@RequestParam("orderId") Long orderId,
+                                                    @RequestParam("productId") String productId,
                                                     @RequestParam("quantity") Integer quantity) {
-        log.info("Received inventory update request for product: {}, quantity: {}", productId, quantity);
-        boolean result = inventoryService.updateInventory(productId, quantity);
+        log.info("Received inventory update request for order: {}, product: {}, quantity: {}", orderId, productId, quantity);
+        boolean result = inventoryService.updateInventory(orderId, productId, quantity);
         return ResponseEntity.ok(result);
     }
     
     @PostMapping("/compensate")
-    public ResponseEntity<Boolean> compensateInventory(@RequestParam("productId") String productId,
+    public ResponseEntity<Boolean> compensateInventory(@RequestParam("orderId") Long orderId,
+                                                      @RequestParam("productId") String productId,
                                                       @RequestParam("quantity") Integer quantity) {
-        log.info("Received inventory compensation request for product: {}, quantity: {}", productId, quantity);
-        boolean result = inventoryService.compensateInventory(productId, quantity);
+        log.info("Received inventory compensation request for order: {}, product: {}, quantity: {}", orderId, productId, quantity);
+        boolean result = inventoryService.compensateInventory(orderId, productId, quantity);
         return ResponseEntity.ok(result);
     }
     
@@ -0,0 +1,6 @@
+package com.saga.inventoryservice.entity;
+
+public enum ReservationStatus {
+    RESERVED,
+    RELEASED
+}
@@ -0,0 +1,36 @@
+package com.saga.inventoryservice.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "stock_buckets", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_stock_buckets_product_bucket", columnNames = {"productId", "bucketIndex"})
+})
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBucket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String productId;
+    
+    @Column(nullable = false)
+    private Integer bucketIndex;
+    
+    @Column(nullable = false)
+    private Integer stock;
+}
@@ -0,0 +1,47 @@
+package com.saga.inventoryservice.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.saga.inventoryservice.entity.StockBucket;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface StockBucketRepository extends JpaRepository<StockBucket, Long> {
+    
+    List<StockBucket> findByProductIdOrderByBucketIndex(String productId);
+    
+    int countByProductId(String productId);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM StockBucket b WHERE b.productId = :productId ORDER BY b.bucketIndex")
+    List<StockBucket> findByProductIdForUpdate(@Param("productId") String productId);
+    
+    // Decremento condicional em uma única linha: sem leitura prévia, sem lost update
+    @Modifying
+    @Query("UPDATE StockBucket b SET b.stock = b.stock - :quantity " +
+           "WHERE b.productId = :productId AND b.bucketIndex = :bucketIndex AND b.stock >= :quantity")
+    int tryReserve(@Param("productId") String productId,
+                   @Param("bucketIndex") Integer bucketIndex,
+                   @Param("quantity") Integer quantity);
+    
+    @Modifying
+    @Query("UPDATE StockBucket b SET b.stock = b.stock + :quantity " +
+           "WHERE b.productId = :productId AND b.bucketIndex = :bucketIndex")
+    int release(@Param("productId") String productId,
+                @Param("bucketIndex") Integer bucketIndex,
+                @Param("quantity") Integer quantity);
+    
+    @Query("SELECT COALESCE(SUM(b.stock), 0) FROM StockBucket b WHERE b.productId = :productId")
+    Long sumStockByProductId(@Param("productId") String productId);
+    
+    @Query("SELECT b.productId, SUM(b.stock) FROM StockBucket b GROUP BY b.productId")
+    List<Object[]> sumStockGroupedByProductId();
+}
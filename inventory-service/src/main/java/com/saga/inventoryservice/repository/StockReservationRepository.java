@@ -0,0 +1,25 @@
+package com.saga.inventoryservice.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.saga.inventoryservice.entity.StockReservation;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+    
+    Optional<StockReservation> findByOrderId(Long orderId);
+    
+    // Só uma compensação concorrente encontra a reserva ainda ativa e devolve o estoque
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = com.saga.inventoryservice.entity.ReservationStatus.RELEASED, " +
+           "r.updatedAt = :now WHERE r.orderId = :orderId " +
+           "AND r.status = com.saga.inventoryservice.entity.ReservationStatus.RESERVED")
+    int markReleased(@Param("orderId") Long orderId, @Param("now") LocalDateTime now);
+}
@@ -1,13 +1,18 @@
 package com.saga.inventoryservice.service;
 
 import com.saga.inventoryservice.entity.Product;
+import com.saga.inventoryservice.entity.ReservationStatus;
+import com.saga.inventoryservice.entity.StockReservation;
 import com.saga.inventoryservice.repository.ProductRepository;
+import com.saga.inventoryservice.repository.StockReservationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -16,34 +21,26 @@ import java.util.Optional;
 public class InventoryService {
     
     private final ProductRepository productRepository;
+    private final PartitionedStockService partitionedStockService;
+    private final StockReservationRepository stockReservationRepository;
     
+    // Idempotente por pedido: a SAGA reenvia o passo na recuperação sem baixar o estoque de novo
     @Transactional
-    public boolean updateInventory(String productId, Integer quantity) {
-        log.info("Updating inventory for product: {}, quantity: {}", productId, quantity);
+    public boolean updateInventory(Long orderId, String productId, Integer quantity) {
+        log.info("Updating inventory for order: {}, product: {}, quantity: {}", orderId, productId, quantity);
         
         try {
-            Optional<Product> productOptional = productRepository.findById(productId);
-            
-            if (!productOptional.isPresent()) {
-                log.error("Product not found: {}", productId);
-                return false;
+            Optional<StockReservation> existing = stockReservationRepository.findByOrderId(orderId);
+            if (existing.isPresent()) {
+                // RELEASED: a compensação chegou antes (ou já desfez a reserva) e o pedido não reserva mais
+                log.warn("Inventory for order {} already handled - reservation is: {}", orderId, existing.get().getStatus());
+                return existing.get().getStatus() == ReservationStatus.RESERVED;
             }
             
-            Product product = productOptional.get();
-            
-            // Verificar se há estoque suficiente
-            if (product.getStock() < quantity) {
-                log.error("Insufficient stock for product: {}. Available: {}, Requested: {}", 
-                         productId, product.getStock(), quantity);
+            if (!reserveStock(productId, quantity)) {
                 return false;
             }
-            
-            // Atualizar estoque
-            product.setStock(product.getStock() - quantity);
-            productRepository.save(product);
-            
-            log.info("Inventory updated successfully for product: {}. New stock: {}", 
-                    productId, product.getStock());
+            stockReservationRepository.save(new StockReservation(orderId, productId, quantity, ReservationStatus.RESERVED));
             return true;
             
         } catch (Exception e) {
@@ -52,27 +49,26 @@ public class InventoryService {
         }
     }
     
+    // Devolve só o que a reserva do pedido baixou, uma única vez
     @Transactional
-    public boolean compensateInventory(String productId, Integer quantity) {
-        log.info("Compensating inventory for product: {}, quantity: {}", productId, quantity);
+    public boolean compensateInventory(Long orderId, String productId, Integer quantity) {
+        log.info("Compensating inventory for order: {}, product: {}, quantity: {}", orderId, productId, quantity);
         
         try {
-            Optional<Product> productOptional = productRepository.findById(productId);
-            
-            if (!productOptional.isPresent()) {
-                log.error("Product not found: {}", productId);
-                return false;
+            Optional<StockReservation> existing = stockReservationRepository.findByOrderId(orderId);
+            if (existing.isEmpty()) {
+                // Marca o pedido como liberado: uma reserva atrasada que chegue depois não baixa o estoque
+                stockReservationRepository.save(new StockReservation(orderId, productId, quantity, ReservationStatus.RELEASED));
+                log.warn("No inventory reservation for order {}, nothing to compensate", orderId);
+                return true;
             }
             
-            Product product = productOptional.get();
-            
-            // Devolver estoque
-            product.setStock(product.getStock() + quantity);
-            productRepository.save(product);
-            
-            log.info("Inventory compensated successfully for product: {}. New stock: {}", 
-                    productId, product.getStock());
-            return true;
+            if (stockReservationRepository.markReleased(orderId, LocalDateTime.now()) == 0) {
+                log.warn("Inventory reservation for order {} already released", orderId);
+                return true;
+            }
+            StockReservation reservation = existing.get();
+            return releaseStock(reservation.getProductId(), reservation.getQuantity());
             
         } catch (Exception e) {
             log.error("Error compensating inventory for product {}: {}", productId, e.getMessage());
@@ -81,21 +77,40 @@ public class InventoryService {
     }
     
     public List<Product> getAllProducts() {
+        if (partitionedStockService.isEnabled()) {
+            Map<String, Integer> totals = partitionedStockService.totalStockByProduct();
+            return productRepository.findAll().stream()
+                    .map(product -> withStock(product, totals.getOrDefault(product.getId(), 0)))
+                    .toList();
+        }
         return productRepository.findAll();
     }
     
     public List<Product> getAvailableProducts() {
+        if (partitionedStockService.isEnabled()) {
+            return getAllProducts().stream()
+                    .filter(product -> product.getStock() > 0)
+                    .toList();
+        }
         return productRepository.findByStockGreaterThan(0);
     }
     
     public Optional<Product> getProductById(String productId) {
+        if (partitionedStockService.isEnabled()) {
+            return productRepository.findById(productId)
+                    .map(product -> withStock(product, partitionedStockService.totalStock(productId)));
+        }
         return productRepository.findById(productId);
     }
     
     @Transactional
     public Product createProduct(Product product) {
         log.info("Creating product: {}", product.getId());
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        if (partitionedStockService.isEnabled()) {
+            partitionedStockService.partition(savedProduct);
+        }
+        return savedProduct;
     }
     
     @Transactional
@@ -106,9 +121,75 @@ public class InventoryService {
         if (productOptional.isPresent()) {
             Product product = productOptional.get();
             product.setStock(newStock);
+            if (partitionedStockService.isEnabled()) {
+                partitionedStockService.redistribute(productId, newStock);
+            }
             return productRepository.save(product);
         }
         
         throw new RuntimeException("Product not found: " + productId);
     }
+    
+    private boolean reserveStock(String productId, Integer quantity) {
+        if (partitionedStockService.isEnabled()) {
+            boolean reserved = partitionedStockService.reserve(productId, quantity);
+            log.info("Partitioned inventory update for product: {} - reserved: {}", productId, reserved);
+            return reserved;
+        }
+        
+        Optional<Product> productOptional = productRepository.findById(productId);
+        
+        if (!productOptional.isPresent()) {
+            log.error("Product not found: {}", productId);
+            return false;
+        }
+        
+        Product product = productOptional.get();
+        
+        // Verificar se há estoque suficiente
+        if (product.getStock() < quantity) {
+            log.error("Insufficient stock for product: {}. Available: {}, Requested: {}", 
+                     productId, product.getStock(), quantity);
+            return false;
+        }
+        
+        // Atualizar estoque
+        product.setStock(product.getStock() - quantity);
+        productRepository.save(product);
+        
+        log.info("Inventory updated successfully for product: {}. New stock: {}", 
+                productId, product.getStock());
+        return true;
+    }
+    
+    private boolean releaseStock(String productId, Integer quantity) {
+        if (partitionedStockService.isEnabled()) {
+            boolean released = partitionedStockService.release(productId, quantity);
+            log.info("Partitioned inventory compensation for product: {} - released: {}", productId, released);
+            return released;
+        }
+        
+        Optional<Product> productOptional = productRepository.findById(productId);
+        
+        if (!productOptional.isPresent()) {
+            log.error("Product not found: {}", productId);
+            return false;
+        }
+        
+        Product product = productOptional.get();
+        
+        // Devolver estoque
+        product.setStock(product.getStock() + quantity);
+        productRepository.save(product);
+        
+        log.info("Inventory compensated successfully for product: {}. New stock: {}", 
+                productId, product.getStock());
+        return true;
+    }
+    
+    // Cópia desanexada: o estoque lógico é a soma dos buckets, não o valor gravado na linha do produto
+    private Product withStock(Product product, int stock) {
+        return new Product(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                stock, product.getCreatedAt(), product.getUpdatedAt());
+    }
 }
\ No newline at end of file
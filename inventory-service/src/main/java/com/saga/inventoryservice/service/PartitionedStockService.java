@@ -0,0 +1,196 @@
+package com.saga.inventoryservice.service;
+
+import com.saga.inventoryservice.config.StockPartitioningSettings;
+import com.saga.inventoryservice.entity.Product;
+import com.saga.inventoryservice.entity.StockBucket;
+import com.saga.inventoryservice.repository.ProductRepository;
+import com.saga.inventoryservice.repository.StockBucketRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionedStockService {
+
+    private final StockBucketRepository stockBucketRepository;
+    private final ProductRepository productRepository;
+    private final StockPartitioningSettings settings;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<String, Integer> bucketCounts = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void partitionExistingProducts() {
+        if (!isEnabled()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> productRepository.findAll().forEach(this::partition));
+        log.info("Stock partitioned into {} buckets for {} products", settings.getBuckets(), bucketCounts.size());
+    }
+
+    @Transactional
+    public void partition(Product product) {
+        int existing = stockBucketRepository.countByProductId(product.getId());
+        if (existing > 0) {
+            bucketCounts.put(product.getId(), existing);
+            return;
+        }
+
+        int buckets = settings.getBuckets();
+        List<StockBucket> created = new ArrayList<>(buckets);
+        int[] shares = split(product.getStock() != null ? product.getStock() : 0, buckets);
+        for (int i = 0; i < buckets; i++) {
+            created.add(new StockBucket(null, product.getId(), i, shares[i]));
+        }
+        stockBucketRepository.saveAll(created);
+        bucketCounts.put(product.getId(), buckets);
+    }
+
+    @Transactional
+    public boolean reserve(String productId, int quantity) {
+        int buckets = bucketCount(productId);
+        if (buckets == 0) {
+            log.error("Product not found: {}", productId);
+            return false;
+        }
+
+        // Começar em um bucket aleatório espalha reservas concorrentes por linhas diferentes
+        int start = ThreadLocalRandom.current().nextInt(buckets);
+        for (int i = 0; i < buckets; i++) {
+            int bucketIndex = (start + i) % buckets;
+            if (stockBucketRepository.tryReserve(productId, bucketIndex, quantity) == 1) {
+                log.debug("Reserved {} units of {} from bucket {}", quantity, productId, bucketIndex);
+                return true;
+            }
+        }
+
+        // Nenhum bucket cobre sozinho: travar todos (em ordem de índice) e juntar o restante
+        List<StockBucket> locked = stockBucketRepository.findByProductIdForUpdate(productId);
+        long available = locked.stream().mapToLong(StockBucket::getStock).sum();
+        if (available < quantity) {
+            log.error("Insufficient stock for product: {}. Available: {}, Requested: {}",
+                     productId, available, quantity);
+            return false;
+        }
+
+        int remaining = quantity;
+        for (int i = 0; i < locked.size() && remaining > 0; i++) {
+            StockBucket bucket = locked.get((start + i) % locked.size());
+            int taken = Math.min(bucket.getStock(), remaining);
+            bucket.setStock(bucket.getStock() - taken);
+            remaining -= taken;
+        }
+        log.debug("Reserved {} units of {} spilling over {} buckets", quantity, productId, locked.size());
+        return true;
+    }
+
+    @Transactional
+    public boolean release(String productId, int quantity) {
+        int buckets = bucketCount(productId);
+        if (buckets == 0) {
+            log.error("Product not found: {}", productId);
+            return false;
+        }
+        int bucketIndex = ThreadLocalRandom.current().nextInt(buckets);
+        return stockBucketRepository.release(productId, bucketIndex, quantity) == 1;
+    }
+
+    @Transactional
+    public void redistribute(String productId, int totalStock) {
+        List<StockBucket> locked = stockBucketRepository.findByProductIdForUpdate(productId);
+        int[] shares = split(totalStock, locked.size());
+        for (int i = 0; i < locked.size(); i++) {
+            locked.get(i).setStock(shares[i]);
+        }
+    }
+
+    public int totalStock(String productId) {
+        return stockBucketRepository.sumStockByProductId(productId).intValue();
+    }
+
+    public Map<String, Integer> totalStockByProduct() {
+        Map<String, Integer> totals = new HashMap<>();
+        for (Object[] row : stockBucketRepository.sumStockGroupedByProductId()) {
+            totals.put((String) row[0], ((Number) row[1]).intValue());
+        }
+        return totals;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.stock-partitioning.rebalance-interval-ms:5000}")
+    public void rebalance() {
+        if (!isEnabled()) {
+            return;
+        }
+        for (String productId : bucketCounts.keySet()) {
+            try {
+                rebalance(productId);
+            } catch (Exception e) {
+                log.error("Error rebalancing stock buckets for product {}: {}", productId, e.getMessage());
+            }
+        }
+    }
+
+    private void rebalance(String productId) {
+        // Leitura sem trava primeiro: a maioria dos ciclos não precisa mexer em nada
+        List<StockBucket> snapshot = stockBucketRepository.findByProductIdOrderByBucketIndex(productId);
+        if (snapshot.isEmpty()) {
+            return;
+        }
+        long total = snapshot.stream().mapToLong(StockBucket::getStock).sum();
+        double floor = (double) total / snapshot.size() * settings.getRebalanceThreshold();
+        if (snapshot.stream().allMatch(bucket -> bucket.getStock() >= floor)) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<StockBucket> locked = stockBucketRepository.findByProductIdForUpdate(productId);
+            int lockedTotal = locked.stream().mapToInt(StockBucket::getStock).sum();
+            int[] shares = split(lockedTotal, locked.size());
+            for (int i = 0; i < locked.size(); i++) {
+                locked.get(i).setStock(shares[i]);
+            }
+            // A linha do produto recebe só um retrato do total, fora do caminho quente
+            productRepository.findById(productId).ifPresent(product -> product.setStock(lockedTotal));
+            log.debug("Rebalanced {} stock buckets for product {} (total {})", locked.size(), productId, lockedTotal);
+        });
+    }
+
+    private int bucketCount(String productId) {
+        Integer cached = bucketCounts.get(productId);
+        if (cached != null) {
+            return cached;
+        }
+        // Só produtos existentes entram no cache, para ids inválidos não crescerem o mapa
+        int count = stockBucketRepository.countByProductId(productId);
+        if (count > 0) {
+            bucketCounts.put(productId, count);
+        }
+        return count;
+    }
+
+    private static int[] split(int total, int buckets) {
+        int[] shares = new int[buckets];
+        for (int i = 0; i < buckets; i++) {
+            shares[i] = total / buckets + (i < total % buckets ? 1 : 0);
+        }
+        return shares;
+    }
+}
@@ -0,0 +1,132 @@
+package com.saga.orderservice.admission;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.stereotype.Component;
+
+import com.saga.orderservice.config.AdmissionSettings;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+public class OrderAdmissionControl {
+    
+    private static final Permit NO_OP_PERMIT = () -> { };
+    // Folga abaixo do limite: uma limpeza cara não se repete a cada cliente novo
+    private static final double EVICTION_TARGET_RATIO = 0.9;
+    
+    private final AdmissionSettings settings;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final Semaphore inFlight;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    
+    private final Counter admitted;
+    private final Counter rejectedByRate;
+    private final Counter rejectedByConcurrency;
+    
+    public OrderAdmissionControl(AdmissionSettings settings, MeterRegistry meterRegistry) {
+        this.settings = settings;
+        this.inFlight = new Semaphore(settings.getMaxConcurrentOrders());
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / settings.getPermitsPerSecond());
+        this.burstToleranceNanos = emissionIntervalNanos * (settings.getBurst() - 1);
+        
+        this.admitted = Counter.builder("orders.admission")
+                .tag("outcome", "admitted")
+                .register(meterRegistry);
+        this.rejectedByRate = Counter.builder("orders.admission")
+                .tag("outcome", "rejected_rate_limit")
+                .register(meterRegistry);
+        this.rejectedByConcurrency = Counter.builder("orders.admission")
+                .tag("outcome", "rejected_concurrency")
+                .register(meterRegistry);
+        Gauge.builder("orders.admission.in.flight", inFlight,
+                        semaphore -> settings.getMaxConcurrentOrders() - semaphore.availablePermits())
+                .register(meterRegistry);
+        Gauge.builder("orders.admission.tracked.customers", buckets, Map::size)
+                .register(meterRegistry);
+    }
+    
+    public Permit admit(String customerId) {
+        if (!settings.isEnabled()) {
+            return NO_OP_PERMIT;
+        }
+        
+        long now = System.nanoTime();
+        long waitNanos = bucketFor(customerId, now).tryAcquire(now, emissionIntervalNanos, burstToleranceNanos);
+        if (waitNanos > 0) {
+            rejectedByRate.increment();
+            log.warn("Order rate limit exceeded for customer: {}", customerId);
+            throw new AdmissionRejectedException("Too many orders for customer " + customerId,
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+        }
+        
+        if (!inFlight.tryAcquire()) {
+            rejectedByConcurrency.increment();
+            log.warn("Order concurrency limit reached, rejecting order for customer: {}", customerId);
+            throw new AdmissionRejectedException("Too many orders in progress", 1);
+        }
+        
+        admitted.increment();
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                inFlight.release();
+            }
+        };
+    }
+    
+    private TokenBucket bucketFor(String customerId, long now) {
+        TokenBucket bucket = buckets.get(customerId);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= settings.getMaxTrackedCustomers()) {
+            evict(now);
+        }
+        return buckets.computeIfAbsent(customerId, id -> new TokenBucket(now));
+    }
+    
+    private void evict(long now) {
+        // Uma thread limpa por vez; as demais seguem sem esperar
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+            if (buckets.size() < settings.getMaxTrackedCustomers()) {
+                return;
+            }
+            int target = (int) (settings.getMaxTrackedCustomers() * EVICTION_TARGET_RATIO);
+            // Todos os restantes têm tokens a recuperar: saem primeiro os de menor instante teórico,
+            // que são os mais perto de encher; os clientes mais limitados continuam limitados
+            List<Map.Entry<String, TokenBucket>> candidates = new ArrayList<>(buckets.entrySet());
+            candidates.sort(Comparator.comparingLong(entry -> entry.getValue().theoreticalArrival()));
+            for (Map.Entry<String, TokenBucket> entry : candidates) {
+                if (buckets.size() <= target) {
+                    break;
+                }
+                buckets.remove(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+    
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
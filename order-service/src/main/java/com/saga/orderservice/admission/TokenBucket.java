@@ -0,0 +1,43 @@
+package com.saga.orderservice.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Balde de tokens na forma GCRA: todo o estado é um único instante teórico de chegada,
+ * atualizado com CAS, sem locks.
+ */
+class TokenBucket {
+    
+    private final AtomicLong theoreticalArrival;
+    
+    TokenBucket(long nowNanos) {
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+    
+    /**
+     * @return 0 se o token foi consumido, senão os nanos até haver um token disponível
+     */
+    long tryAcquire(long nowNanos, long emissionIntervalNanos, long burstToleranceNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long base = Math.max(current, nowNanos);
+            long waitNanos = base - nowNanos - burstToleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, base + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+    
+    // Quanto menor, mais perto de encher: é o balde mais barato de descartar
+    long theoreticalArrival() {
+        return theoreticalArrival.get();
+    }
+    
+    // Balde cheio: descartá-lo não muda nenhuma decisão futura
+    boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() <= nowNanos;
+    }
+}
@@ -8,10 +8,12 @@ import org.springframework.web.bind.annotation.RequestParam;
 public interface InventoryServiceClient {
     
     @PostMapping("/api/inventory/update")
-    boolean updateInventory(@RequestParam("productId") String productId,
-                             @RequestParam("quantity") Integer quantity);
+    boolean updateInventory(@RequestParam("orderId") Long orderId,
+                            @RequestParam("productId") String productId,
+                            @RequestParam("quantity") Integer quantity);
     
     @PostMapping("/api/inventory/compensate")
-    boolean compensateInventory(@RequestParam("productId") String productId,
-                                 @RequestParam("quantity") Integer quantity);
+    boolean compensateInventory(@RequestParam("orderId") Long orderId,
+                                @RequestParam("productId") String productId,
+                                @RequestParam("quantity") Integer quantity);
 }
\ No newline at end of file
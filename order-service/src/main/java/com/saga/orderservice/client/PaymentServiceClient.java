@@ -1,9 +1,12 @@
 package com.saga.orderservice.client;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
 @FeignClient(name = "payment-service", url = "http://localhost:8081")
@@ -14,6 +17,20 @@ public interface PaymentServiceClient {
                           @RequestParam("customerId") String customerId,
                           @RequestParam("amount") BigDecimal amount);
     
+    @PostMapping("/api/payments/authorize")
+    boolean authorizePayment(@RequestParam("orderId") Long orderId,
+                             @RequestParam("customerId") String customerId,
+                             @RequestParam("amount") BigDecimal amount);
+    
     @PostMapping("/api/payments/refund")
     boolean refundPayment(@RequestParam("orderId") Long orderId);
+    
+    @PostMapping("/api/payments/resolve")
+    boolean resolvePayment(@RequestParam("orderId") Long orderId);
+    
+    @GetMapping("/api/payments/status")
+    PaymentStatus getPaymentStatus(@RequestParam("orderId") Long orderId);
+    
+    @PostMapping("/api/payments/archive")
+    int archivePayments(@RequestBody List<Long> orderIds);
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.saga.orderservice.client;
+
+// Espelho do status de pagamento do payment-service, lido em GET /api/payments/status
+public enum PaymentStatus {
+    PENDING,
+    COMPLETED,
+    FAILED,
+    REFUNDED
+}
@@ -0,0 +1,23 @@
+package com.saga.orderservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "orders.admission")
+public class AdmissionSettings {
+    
+    private boolean enabled = true;
+    
+    // Taxa sustentada de pedidos por cliente
+    private double permitsPerSecond = 5.0;
+    
+    // Rajada máxima aceita de um cliente com o balde cheio
+    private int burst = 10;
+    
+    private int maxTrackedCustomers = 10_000;
+    
+    // Limite global de SAGAs em andamento no POST /api/orders
+    private int maxConcurrentOrders = 64;
+}
@@ -0,0 +1,30 @@
+package com.saga.orderservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "orders.archive")
+public class ArchiveSettings {
+    
+    private boolean enabled = true;
+    
+    // Pedidos terminais sem atualização há mais tempo que isso saem das tabelas quentes
+    private Duration minAge = Duration.ofDays(7);
+    
+    private int batchSize = 500;
+    
+    private int maxBatchesPerRun = 20;
+    
+    // Pausa entre lotes para o arquivamento não competir com o tráfego da SAGA
+    private long pauseBetweenBatchesMs = 100;
+    
+    private long intervalMs = 60_000;
+    
+    // Páginas que intercalam pedidos quentes e arquivados leem offset + size linhas de cada tabela:
+    // acima disso a consulta é recusada em vez de varrer o histórico inteiro
+    private int maxMergedPageDepth = 10_000;
+}
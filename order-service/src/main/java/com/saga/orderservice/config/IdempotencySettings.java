@@ -0,0 +1,23 @@
+package com.saga.orderservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "orders.idempotency")
+public class IdempotencySettings {
+    
+    // Respostas mantidas em memória; chaves mais antigas são resolvidas pela tabela idempotency_keys
+    private int maxCachedResponses = 10_000;
+    
+    // Quanto uma requisição duplicada espera pela original ainda em andamento
+    private long waitTimeoutMs = 30_000;
+    
+    // Chaves mais antigas que isso são apagadas de idempotency_keys e podem ser reutilizadas
+    private Duration ttl = Duration.ofHours(24);
+    
+    private long purgeIntervalMs = 3_600_000;
+}
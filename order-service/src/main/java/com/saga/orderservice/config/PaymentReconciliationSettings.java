@@ -0,0 +1,25 @@
+package com.saga.orderservice.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "saga.payment.reconciliation")
+public class PaymentReconciliationSettings {
+    
+    // Só atua com saga.payment.async=true
+    private boolean enabled = true;
+    
+    // Pedidos em PAYMENT_PROCESSING há mais tempo que isso têm a autorização reenviada
+    private Duration staleAfter = Duration.ofSeconds(30);
+    
+    // Passado esse prazo o pagamento é resolvido no payment-service e a SAGA segue com o resultado
+    private Duration timeout = Duration.ofMinutes(5);
+    
+    private int batchSize = 100;
+    
+    private long intervalMs = 15_000;
+}
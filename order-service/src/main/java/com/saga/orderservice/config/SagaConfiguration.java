@@ -0,0 +1,53 @@
+package com.saga.orderservice.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.saga.orderservice.client.InventoryServiceClient;
+import com.saga.orderservice.client.PaymentServiceClient;
+import com.saga.orderservice.entity.OrderStatus;
+import com.saga.orderservice.saga.SagaDefinition;
+import com.saga.orderservice.saga.SagaStep;
+import com.saga.orderservice.saga.StepOutcome;
+
+@Configuration
+public class SagaConfiguration {
+    
+    @Bean
+    public SagaDefinition orderSagaDefinition(PaymentServiceClient paymentServiceClient,
+                                              InventoryServiceClient inventoryServiceClient,
+                                              @Value("${saga.payment.async:false}") boolean asyncPayment) {
+        // Passo 1: Processar pagamento (no modo assíncrono o resultado chega via callback)
+        SagaStep payment = SagaStep.builder()
+                .name("payment")
+                .processingStatus(OrderStatus.PAYMENT_PROCESSING)
+                .completedStatus(OrderStatus.PAYMENT_COMPLETED)
+                .failedStatus(OrderStatus.PAYMENT_FAILED)
+                .action(order -> {
+                    if (asyncPayment) {
+                        return paymentServiceClient.authorizePayment(order.getId(), order.getCustomerId(), order.getTotalAmount())
+                                ? StepOutcome.AWAITING_CALLBACK : StepOutcome.FAILED;
+                    }
+                    return paymentServiceClient.processPayment(order.getId(), order.getCustomerId(), order.getTotalAmount())
+                            ? StepOutcome.SUCCEEDED : StepOutcome.FAILED;
+                })
+                .compensation(order -> paymentServiceClient.refundPayment(order.getId()))
+                .build();
+        
+        // Passo 2: Atualizar inventário
+        SagaStep inventory = SagaStep.builder()
+                .name("inventory")
+                .processingStatus(OrderStatus.INVENTORY_PROCESSING)
+                .completedStatus(OrderStatus.INVENTORY_COMPLETED)
+                .failedStatus(OrderStatus.INVENTORY_FAILED)
+                .action(order -> inventoryServiceClient.updateInventory(order.getId(), order.getProductId(), order.getQuantity())
+                        ? StepOutcome.SUCCEEDED : StepOutcome.FAILED)
+                .compensation(order -> inventoryServiceClient.compensateInventory(order.getId(), order.getProductId(), order.getQuantity()))
+                .build();
+        
+        return new SagaDefinition(List.of(payment, inventory));
+    }
+}
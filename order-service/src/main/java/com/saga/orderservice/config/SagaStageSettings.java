@@ -0,0 +1,30 @@
+package com.saga.orderservice.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "saga")
+public class SagaStageSettings {
+    
+    // Chave: nome do passo (payment, inventory) ou "finalize"
+    private Map<String, Stage> stages = new HashMap<>();
+    
+    // Quanto um POST /api/orders espera por vaga no primeiro estágio antes de responder 429
+    private long startTimeoutMs = 200;
+    
+    public Stage forStage(String name) {
+        return stages.getOrDefault(name, new Stage());
+    }
+    
+    @Data
+    public static class Stage {
+        private int workers = 4;
+        private int queueCapacity = 1000;
+        private int batchSize = 10;
+    }
+}
@@ -1,14 +1,26 @@
 package com.saga.orderservice.controller;
 
+import com.saga.orderservice.admission.AdmissionRejectedException;
+import com.saga.orderservice.admission.OrderAdmissionControl;
 import com.saga.orderservice.dto.OrderRequest;
 import com.saga.orderservice.dto.OrderResponse;
+import com.saga.orderservice.dto.SagaStatsResponse;
+import com.saga.orderservice.entity.OrderStatus;
+import com.saga.orderservice.service.IdempotencyConflictException;
+import com.saga.orderservice.service.IdempotencyMismatchException;
+import com.saga.orderservice.service.IdempotencyService;
 import com.saga.orderservice.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -17,13 +29,34 @@ import java.util.List;
 public class OrderController {
     
     private final OrderService orderService;
+    private final OrderAdmissionControl orderAdmissionControl;
+    private final IdempotencyService idempotencyService;
     
     @PostMapping
-    public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody OrderRequest request) {
-        OrderResponse response = orderService.createOrder(request);
+    public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody OrderRequest request,
+                                                     @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        // Com chave, a admissão acontece no IdempotencyService: só repetições em cache a dispensam
+        OrderResponse response = idempotencyKey == null
+                ? admitAndCreate(request)
+                : idempotencyService.execute(request, idempotencyKey,
+                        requestHash -> orderService.createOrder(request, idempotencyKey, requestHash));
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
     
+    // 'approved' é aceito por compatibilidade e ignorado: o resultado vem do payment-service
+    @PostMapping("/{id}/payment-callback")
+    public ResponseEntity<Boolean> paymentCallback(@PathVariable Long id,
+                                                   @RequestParam(value = "approved", required = false) Boolean approved) {
+        boolean advanced = orderService.handlePaymentCallback(id);
+        return ResponseEntity.ok(advanced);
+    }
+    
+    // Servido dos contadores em memória: custo constante, independente do tamanho da tabela
+    @GetMapping("/stats")
+    public ResponseEntity<SagaStatsResponse> getSagaStats() {
+        return ResponseEntity.ok(orderService.getSagaStats());
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long id) {
         OrderResponse response = orderService.getOrderById(id);
@@ -41,4 +74,49 @@ public class OrderController {
         List<OrderResponse> responses = orderService.getOrdersByCustomerId(customerId);
         return ResponseEntity.ok(responses);
     }
+    
+    @GetMapping("/customer/{customerId}/history")
+    public ResponseEntity<Page<OrderResponse>> getOrderHistory(@PathVariable String customerId, Pageable pageable) {
+        Page<OrderResponse> responses = orderService.getOrderHistory(customerId, pageable);
+        return ResponseEntity.ok(responses);
+    }
+    
+    @GetMapping("/status/{status}")
+    public ResponseEntity<Page<OrderResponse>> getOrdersByStatus(
+            @PathVariable OrderStatus status,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            Pageable pageable) {
+        Page<OrderResponse> responses = orderService.getOrdersByStatus(status, from, to, pageable);
+        return ResponseEntity.ok(responses);
+    }
+    
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<String> handleIdempotencyConflict(IdempotencyConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+    
+    @ExceptionHandler(IdempotencyMismatchException.class)
+    public ResponseEntity<String> handleIdempotencyMismatch(IdempotencyMismatchException e) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
+    }
+    
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<String> handleAdmissionRejected(AdmissionRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+    
+    private OrderResponse admitAndCreate(OrderRequest request) {
+        // Admissão antes de qualquer acesso ao banco ou chamada Feign
+        try (OrderAdmissionControl.Permit permit = orderAdmissionControl.admit(request.getCustomerId())) {
+            return orderService.createOrder(request);
+        }
+    }
 }
\ No newline at end of file
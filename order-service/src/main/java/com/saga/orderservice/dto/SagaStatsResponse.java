@@ -0,0 +1,17 @@
+package com.saga.orderservice.dto;
+
+import com.saga.orderservice.entity.OrderStatus;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class SagaStatsResponse {
+    private long totalOrders;
+    private Map<OrderStatus, Long> ordersByStatus;
+    private Map<String, Long> transitions;
+    private int windowSeconds;
+    private double ordersPerSecond;
+    private double failureRatio;
+    private double compensationRatio;
+}
@@ -0,0 +1,61 @@
+package com.saga.orderservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+    @Index(name = "idx_idempotency_keys_created_at", columnList = "createdAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord implements Persistable<IdempotencyRecord.Key> {
+    // Chave por cliente: o mesmo valor de cabeçalho em clientes diferentes são pedidos diferentes
+    @EmbeddedId
+    private Key key;
+    
+    // SHA-256 do corpo da requisição original; repetição com outro corpo é rejeitada
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+    
+    @Column(nullable = false)
+    private Long orderId;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+    
+    @Override
+    public Key getId() {
+        return key;
+    }
+    
+    // Registros nunca são atualizados: sempre persist, para uma chave repetida violar a PK em vez de virar merge
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+    
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Column(nullable = false)
+        private String customerId;
+        
+        @Column(length = 128, nullable = false)
+        private String idempotencyKey;
+    }
+}
@@ -9,7 +9,11 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_customer_id", columnList = "customerId"),
+    @Index(name = "idx_orders_status_updated_at", columnList = "status, updatedAt"),
+    @Index(name = "idx_orders_created_at", columnList = "createdAt")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -34,6 +38,12 @@ public class Order {
     @Column(nullable = false)
     private OrderStatus status;
     
+    // Preenchidos ao entrar em COMPENSATING: passos abaixo de failedStep são desfeitos e o pedido termina em failureStatus
+    private Integer failedStep;
+    
+    @Enumerated(EnumType.STRING)
+    private OrderStatus failureStatus;
+    
     @Column(nullable = false)
     private LocalDateTime createdAt;
     
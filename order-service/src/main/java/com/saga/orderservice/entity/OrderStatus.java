@@ -1,5 +1,8 @@
 package com.saga.orderservice.entity;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum OrderStatus {
     PENDING,
     PAYMENT_PROCESSING,
@@ -8,6 +11,14 @@ public enum OrderStatus {
     INVENTORY_PROCESSING,
     INVENTORY_COMPLETED,
     INVENTORY_FAILED,
+    // Não terminal: compensações em andamento, retomadas pela recuperação se a instância parar
+    COMPENSATING,
     COMPLETED,
-    CANCELLED
-}
\ No newline at end of file
+    CANCELLED;
+    
+    public static final Set<OrderStatus> TERMINAL = EnumSet.of(COMPLETED, CANCELLED, PAYMENT_FAILED, INVENTORY_FAILED);
+    
+    public boolean isTerminal() {
+        return TERMINAL.contains(this);
+    }
+}
@@ -0,0 +1,55 @@
+package com.saga.orderservice.repository;
+
+import com.saga.orderservice.dto.OrderResponse;
+import com.saga.orderservice.entity.ArchivedOrder;
+import com.saga.orderservice.entity.OrderStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    @Query("SELECT new com.saga.orderservice.dto.OrderResponse(a.id, a.customerId, a.productId, a.quantity, " +
+           "a.totalAmount, a.status, a.createdAt, a.updatedAt) FROM ArchivedOrder a WHERE a.id = :id")
+    Optional<OrderResponse> findResponseById(@Param("id") Long id);
+
+    @Query("SELECT new com.saga.orderservice.dto.OrderResponse(a.id, a.customerId, a.productId, a.quantity, " +
+           "a.totalAmount, a.status, a.createdAt, a.updatedAt) FROM ArchivedOrder a WHERE a.customerId = :customerId " +
+           "ORDER BY a.createdAt DESC")
+    List<OrderResponse> findResponsesByCustomerId(@Param("customerId") String customerId);
+
+    @Query(value = "SELECT new com.saga.orderservice.dto.OrderResponse(a.id, a.customerId, a.productId, a.quantity, " +
+                   "a.totalAmount, a.status, a.createdAt, a.updatedAt) FROM ArchivedOrder a WHERE a.customerId = :customerId",
+           countQuery = "SELECT COUNT(a) FROM ArchivedOrder a WHERE a.customerId = :customerId")
+    Page<OrderResponse> findResponsesByCustomerId(@Param("customerId") String customerId, Pageable pageable);
+
+    @Query(value = "SELECT new com.saga.orderservice.dto.OrderResponse(a.id, a.customerId, a.productId, a.quantity, " +
+                   "a.totalAmount, a.status, a.createdAt, a.updatedAt) FROM ArchivedOrder a WHERE a.status = :status " +
+                   "AND a.updatedAt >= :from AND a.updatedAt < :to",
+           countQuery = "SELECT COUNT(a) FROM ArchivedOrder a WHERE a.status = :status " +
+                        "AND a.updatedAt >= :from AND a.updatedAt < :to")
+    Page<OrderResponse> findResponsesByStatusAndUpdatedAtBetween(@Param("status") OrderStatus status,
+                                                                 @Param("from") LocalDateTime from,
+                                                                 @Param("to") LocalDateTime to,
+                                                                 Pageable pageable);
+
+    // Cópia feita inteiramente no banco, sem carregar os pedidos na JVM
+    @Modifying
+    @Query("INSERT INTO ArchivedOrder (id, customerId, productId, quantity, totalAmount, status, createdAt, updatedAt, archivedAt) " +
+           "SELECT o.id, o.customerId, o.productId, o.quantity, o.totalAmount, o.status, o.createdAt, o.updatedAt, :archivedAt " +
+           "FROM Order o WHERE o.id IN :ids")
+    int copyFromOrders(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Query("SELECT a.status, COUNT(a) FROM ArchivedOrder a GROUP BY a.status")
+    List<Object[]> countGroupedByStatus();
+}
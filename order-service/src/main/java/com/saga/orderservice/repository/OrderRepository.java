@@ -1,13 +1,86 @@
 package com.saga.orderservice.repository;
 
+import com.saga.orderservice.dto.OrderResponse;
 import com.saga.orderservice.entity.Order;
+import com.saga.orderservice.entity.OrderStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByCustomerId(String customerId);
-    List<Order> findByStatus(com.saga.orderservice.entity.OrderStatus status);
-}
\ No newline at end of file
+    List<Order> findByStatus(OrderStatus status);
+    List<Order> findByStatusAndUpdatedAtBefore(OrderStatus status, LocalDateTime cutoff, Pageable pageable);
+
+    // Projeções somente leitura: montam o DTO direto na query, sem entidades gerenciadas
+    @Query("SELECT new com.saga.orderservice.dto.OrderResponse(o.id, o.customerId, o.productId, o.quantity, " +
+           "o.totalAmount, o.status, o.createdAt, o.updatedAt) FROM Order o WHERE o.customerId = :customerId " +
+           "ORDER BY o.createdAt DESC")
+    List<OrderResponse> findResponsesByCustomerId(@Param("customerId") String customerId);
+
+    @Query(value = "SELECT new com.saga.orderservice.dto.OrderResponse(o.id, o.customerId, o.productId, o.quantity, " +
+                   "o.totalAmount, o.status, o.createdAt, o.updatedAt) FROM Order o WHERE o.customerId = :customerId",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.customerId = :customerId")
+    Page<OrderResponse> findResponsesByCustomerId(@Param("customerId") String customerId, Pageable pageable);
+
+    @Query(value = "SELECT new com.saga.orderservice.dto.OrderResponse(o.id, o.customerId, o.productId, o.quantity, " +
+                   "o.totalAmount, o.status, o.createdAt, o.updatedAt) FROM Order o WHERE o.status = :status " +
+                   "AND o.updatedAt >= :from AND o.updatedAt < :to",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.status = :status " +
+                        "AND o.updatedAt >= :from AND o.updatedAt < :to")
+    Page<OrderResponse> findResponsesByStatusAndUpdatedAtBetween(@Param("status") OrderStatus status,
+                                                                 @Param("from") LocalDateTime from,
+                                                                 @Param("to") LocalDateTime to,
+                                                                 Pageable pageable);
+
+    // Transição condicional: só um chamador consegue mover o pedido a partir de 'from'
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :to, o.updatedAt = :now WHERE o.id = :id AND o.status = :from")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("from") OrderStatus from,
+                         @Param("to") OrderStatus to,
+                         @Param("now") LocalDateTime now);
+
+    // Entrada condicional em COMPENSATING: grava junto o que desfazer e o status final, para a recuperação retomar
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = com.saga.orderservice.entity.OrderStatus.COMPENSATING, " +
+           "o.failedStep = :failedStep, o.failureStatus = :failureStatus, o.updatedAt = :now " +
+           "WHERE o.id = :id AND o.status = :from")
+    int startCompensation(@Param("id") Long id,
+                          @Param("from") OrderStatus from,
+                          @Param("failedStep") Integer failedStep,
+                          @Param("failureStatus") OrderStatus failureStatus,
+                          @Param("now") LocalDateTime now);
+
+    // Usa o índice (status, updatedAt) para achar pedidos terminais antigos
+    @Query("SELECT o.id FROM Order o WHERE o.status IN :statuses AND o.updatedAt < :cutoff ORDER BY o.updatedAt")
+    List<Long> findIdsByStatusInAndUpdatedAtBefore(@Param("statuses") Collection<OrderStatus> statuses,
+                                                   @Param("cutoff") LocalDateTime cutoff,
+                                                   Pageable pageable);
+
+    // Paginação por id para a recuperação da SAGA na subida
+    @Query("SELECT o FROM Order o WHERE o.status = :status AND o.id > :afterId ORDER BY o.id")
+    List<Order> findByStatusAndIdGreaterThan(@Param("status") OrderStatus status,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Order o WHERE o.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Lida uma única vez, para semear as estatísticas em memória da SAGA
+    @Query("SELECT o.status, COUNT(o) FROM Order o GROUP BY o.status")
+    List<Object[]> countGroupedByStatus();
+}
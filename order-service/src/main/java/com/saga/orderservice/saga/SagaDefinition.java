@@ -0,0 +1,27 @@
+package com.saga.orderservice.saga;
+
+import java.util.List;
+
+import lombok.Value;
+
+@Value
+public class SagaDefinition {
+    List<SagaStep> steps;
+    
+    public SagaStep step(int index) {
+        return steps.get(index);
+    }
+    
+    public int size() {
+        return steps.size();
+    }
+    
+    public int indexOf(String stepName) {
+        for (int i = 0; i < steps.size(); i++) {
+            if (steps.get(i).getName().equals(stepName)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown saga step: " + stepName);
+    }
+}
@@ -0,0 +1,30 @@
+package com.saga.orderservice.saga;
+
+import lombok.Value;
+
+@Value
+public class SagaMessage {
+    Type type;
+    Long orderId;
+    // EXECUTE: passo a executar; nos demais tipos não é usado
+    int stepIndex;
+    
+    public enum Type {
+        EXECUTE,
+        COMPLETE,
+        // O que desfazer e o status final ficam gravados no pedido (COMPENSATING), não na mensagem
+        COMPENSATE
+    }
+    
+    public static SagaMessage execute(Long orderId, int stepIndex) {
+        return new SagaMessage(Type.EXECUTE, orderId, stepIndex);
+    }
+    
+    public static SagaMessage complete(Long orderId) {
+        return new SagaMessage(Type.COMPLETE, orderId, -1);
+    }
+    
+    public static SagaMessage compensate(Long orderId) {
+        return new SagaMessage(Type.COMPENSATE, orderId, -1);
+    }
+}
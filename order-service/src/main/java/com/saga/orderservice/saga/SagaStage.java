@@ -0,0 +1,141 @@
+package com.saga.orderservice.saga;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.saga.orderservice.config.SagaStageSettings;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Um estágio da SAGA: fila limitada própria, pool de workers próprio e processamento em lotes.
+ * Entre estágios, uma fila cheia bloqueia quem envia, propagando a contrapressão só para o estágio
+ * anterior; na entrada da SAGA a vaga é reservada com timeout, antes de o pedido ser gravado.
+ */
+@Slf4j
+public class SagaStage {
+    
+    @Getter
+    private final String name;
+    private final SagaStageSettings.Stage settings;
+    private final BlockingQueue<SagaMessage> queue;
+    // Vagas da fila: liberadas quando um worker retira a mensagem
+    private final Semaphore capacity;
+    private final Consumer<List<SagaMessage>> handler;
+    private final Timer serviceTime;
+    
+    private ExecutorService workers;
+    private volatile boolean running;
+    
+    public SagaStage(String name, SagaStageSettings.Stage settings, Consumer<List<SagaMessage>> handler,
+                     MeterRegistry meterRegistry) {
+        this.name = name;
+        this.settings = settings;
+        this.queue = new LinkedBlockingQueue<>();
+        this.capacity = new Semaphore(settings.getQueueCapacity());
+        this.handler = handler;
+        this.serviceTime = Timer.builder("saga.stage.service.time")
+                .tag("stage", name)
+                .register(meterRegistry);
+        Gauge.builder("saga.stage.queue.depth", queue, BlockingQueue::size)
+                .tag("stage", name)
+                .register(meterRegistry);
+    }
+    
+    public void start() {
+        running = true;
+        workers = Executors.newFixedThreadPool(settings.getWorkers(),
+                Thread.ofPlatform().name("saga-" + name + "-", 0).factory());
+        for (int i = 0; i < settings.getWorkers(); i++) {
+            workers.execute(this::runWorker);
+        }
+        log.info("Started saga stage {} with {} workers (batch size {}, queue capacity {})",
+                name, settings.getWorkers(), settings.getBatchSize(), settings.getQueueCapacity());
+    }
+    
+    // Workers terminam o lote em andamento. O orquestrador só encaminha depois de gravar o status
+    // (inclusive COMPENSATING), então o que ficar na fila é retomado pela recuperação na subida
+    public void stop() throws InterruptedException {
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Saga stage {} stopped with {} queued messages", name, queue.size());
+        }
+    }
+    
+    public void submit(SagaMessage message) {
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while submitting order " + message.getOrderId() + " to stage " + name);
+        }
+        queue.add(message);
+    }
+    
+    public boolean tryReserve(long timeoutMs) {
+        try {
+            return capacity.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    // Usa uma vaga obtida antes com tryReserve: nunca bloqueia
+    public void submitReserved(SagaMessage message) {
+        queue.add(message);
+    }
+    
+    public void releaseReservation() {
+        capacity.release();
+    }
+    
+    public int getQueueDepth() {
+        return queue.size();
+    }
+    
+    private void runWorker() {
+        List<SagaMessage> batch = new ArrayList<>(settings.getBatchSize());
+        while (running) {
+            try {
+                SagaMessage first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, settings.getBatchSize() - 1);
+                capacity.release(batch.size());
+                
+                long start = System.nanoTime();
+                handler.accept(batch);
+                long perMessage = (System.nanoTime() - start) / batch.size();
+                for (int i = 0; i < batch.size(); i++) {
+                    serviceTime.record(perMessage, TimeUnit.NANOSECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // O handler trata falhas por mensagem; chegar aqui deixa os pedidos para a recuperação na subida
+                log.error("Error processing batch of {} messages in saga stage {}: {}", batch.size(), name, e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.saga.orderservice.saga;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.saga.orderservice.entity.Order;
+import com.saga.orderservice.entity.OrderStatus;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class SagaStep {
+    String name;
+    OrderStatus processingStatus;
+    OrderStatus completedStatus;
+    OrderStatus failedStatus;
+    Function<Order, StepOutcome> action;
+    // Desfaz o passo quando um passo posterior falha; null se não há o que desfazer
+    Consumer<Order> compensation;
+}
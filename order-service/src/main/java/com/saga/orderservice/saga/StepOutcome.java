@@ -0,0 +1,8 @@
+package com.saga.orderservice.saga;
+
+public enum StepOutcome {
+    SUCCEEDED,
+    FAILED,
+    // O serviço remoto aceitou o pedido e responderá depois (ex.: callback de pagamento)
+    AWAITING_CALLBACK
+}
@@ -0,0 +1,8 @@
+package com.saga.orderservice.service;
+
+public class IdempotencyConflictException extends RuntimeException {
+    
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
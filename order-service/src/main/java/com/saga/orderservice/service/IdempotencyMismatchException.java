@@ -0,0 +1,8 @@
+package com.saga.orderservice.service;
+
+public class IdempotencyMismatchException extends RuntimeException {
+    
+    public IdempotencyMismatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,164 @@
+package com.saga.orderservice.service;
+
+import com.saga.orderservice.admission.OrderAdmissionControl;
+import com.saga.orderservice.config.IdempotencySettings;
+import com.saga.orderservice.dto.OrderRequest;
+import com.saga.orderservice.dto.OrderResponse;
+import com.saga.orderservice.entity.IdempotencyRecord;
+import com.saga.orderservice.repository.IdempotencyRecordRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+    
+    private static final int MAX_KEY_LENGTH = 128;
+    
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final OrderService orderService;
+    private final IdempotencySettings settings;
+    private final OrderAdmissionControl orderAdmissionControl;
+    
+    // Só o id do pedido fica em memória: cada repetição relê o pedido e vê o status atual
+    private final Map<IdempotencyRecord.Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    
+    public OrderResponse execute(OrderRequest request, String idempotencyKey, Function<String, OrderResponse> action) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must have between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        
+        IdempotencyRecord.Key key = new IdempotencyRecord.Key(request.getCustomerId(), idempotencyKey);
+        String requestHash = fingerprint(request);
+        Entry pending = new Entry(requestHash, new CompletableFuture<>(), System.currentTimeMillis());
+        Entry existing = entries.putIfAbsent(key, pending);
+        if (existing != null) {
+            // Repetição ou duplicata concorrente: reaproveitar o pedido da primeira requisição
+            verifySameRequest(idempotencyKey, existing.requestHash(), requestHash);
+            log.info("Replaying order for Idempotency-Key: {}", idempotencyKey);
+            return orderService.getOrderById(await(idempotencyKey, existing.orderId()));
+        }
+        
+        // Só o acerto em memória dispensa a admissão: a consulta ao banco já conta como trabalho
+        try (OrderAdmissionControl.Permit permit = orderAdmissionControl.admit(request.getCustomerId())) {
+            OrderResponse response;
+            Optional<IdempotencyRecord> record = idempotencyRecordRepository.findById(key);
+            if (record.isPresent()) {
+                verifySameRequest(idempotencyKey, record.get().getRequestHash(), requestHash);
+                response = orderService.getOrderById(record.get().getOrderId());
+            } else {
+                response = action.apply(requestHash);
+            }
+            pending.orderId().complete(response.getId());
+            evictIfNeeded();
+            return response;
+        } catch (DataIntegrityViolationException e) {
+            // Outra instância gravou a mesma chave primeiro
+            IdempotencyConflictException conflict = new IdempotencyConflictException(
+                    "Request with Idempotency-Key " + idempotencyKey + " is already being processed");
+            fail(key, pending, conflict);
+            throw conflict;
+        } catch (RuntimeException e) {
+            fail(key, pending, e);
+            throw e;
+        }
+    }
+    
+    // Chaves mais antigas que o TTL deixam de proteger repetições, como pedidos antigos saem para o arquivo
+    @Scheduled(fixedDelayString = "${orders.idempotency.purge-interval-ms:3600000}",
+               initialDelayString = "${orders.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpiredKeys() {
+        long cutoffMillis = System.currentTimeMillis() - settings.getTtl().toMillis();
+        entries.values().removeIf(entry -> entry.orderId().isDone() && entry.createdAtMillis() < cutoffMillis);
+        
+        int purged = idempotencyRecordRepository.deleteByCreatedAtBefore(LocalDateTime.now().minus(settings.getTtl()));
+        if (purged > 0) {
+            log.info("Purged {} idempotency keys older than {}", purged, settings.getTtl());
+        }
+    }
+    
+    private void verifySameRequest(String idempotencyKey, String originalHash, String requestHash) {
+        if (!originalHash.equals(requestHash)) {
+            throw new IdempotencyMismatchException(
+                    "Idempotency-Key " + idempotencyKey + " was already used with a different request");
+        }
+    }
+    
+    private void fail(IdempotencyRecord.Key key, Entry pending, RuntimeException e) {
+        // Falhas não ficam em cache: a próxima repetição tenta de novo
+        entries.remove(key, pending);
+        pending.orderId().completeExceptionally(e);
+    }
+    
+    private Long await(String idempotencyKey, CompletableFuture<Long> orderId) {
+        try {
+            return orderId.get(settings.getWaitTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IdempotencyConflictException("Request with Idempotency-Key " + idempotencyKey + " failed");
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("Request with Idempotency-Key " + idempotencyKey + " is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Interrupted while waiting for Idempotency-Key " + idempotencyKey);
+        }
+    }
+    
+    private void evictIfNeeded() {
+        if (entries.size() <= settings.getMaxCachedResponses() || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Só entradas concluídas saem do cache; requisições em andamento continuam visíveis às duplicatas
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (entries.size() > settings.getMaxCachedResponses() && iterator.hasNext()) {
+                if (iterator.next().orderId().isDone()) {
+                    iterator.remove();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+    
+    // Campos do corpo em forma canônica: espaços no JSON ou 10.0 vs 10.00 não mudam o hash
+    private static String fingerprint(OrderRequest request) {
+        String canonical = String.join("\n",
+                request.getCustomerId(),
+                request.getProductId(),
+                String.valueOf(request.getQuantity()),
+                request.getTotalAmount().stripTrailingZeros().toPlainString());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private record Entry(String requestHash, CompletableFuture<Long> orderId, long createdAtMillis) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.saga.orderservice.service;
+
+import com.saga.orderservice.client.PaymentServiceClient;
+import com.saga.orderservice.config.ArchiveSettings;
+import com.saga.orderservice.entity.OrderStatus;
+import com.saga.orderservice.repository.ArchivedOrderRepository;
+import com.saga.orderservice.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderArchiver {
+    
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final PaymentServiceClient paymentServiceClient;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchiveSettings settings;
+    
+    @Scheduled(fixedDelayString = "${orders.archive.interval-ms:60000}", initialDelayString = "${orders.archive.interval-ms:60000}")
+    public void archiveTerminalOrders() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        
+        LocalDateTime cutoff = LocalDateTime.now().minus(settings.getMinAge());
+        int archived = 0;
+        for (int batch = 0; batch < settings.getMaxBatchesPerRun(); batch++) {
+            List<Long> ids = orderRepository.findIdsByStatusInAndUpdatedAtBefore(
+                    OrderStatus.TERMINAL, cutoff, PageRequest.of(0, settings.getBatchSize()));
+            if (ids.isEmpty()) {
+                break;
+            }
+            
+            try {
+                // Pagamentos primeiro: se a chamada falhar, os pedidos continuam quentes e entram no próximo ciclo
+                paymentServiceClient.archivePayments(ids);
+            } catch (Exception e) {
+                log.error("Error archiving payments, postponing order archiving: {}", e.getMessage());
+                break;
+            }
+            
+            archived += transactionTemplate.execute(status -> {
+                archivedOrderRepository.copyFromOrders(ids, LocalDateTime.now());
+                return orderRepository.deleteByIdIn(ids);
+            });
+            
+            if (!pause()) {
+                break;
+            }
+        }
+        
+        if (archived > 0) {
+            log.info("Archived {} terminal orders older than {}", archived, cutoff);
+        }
+    }
+    
+    private boolean pause() {
+        try {
+            Thread.sleep(settings.getPauseBetweenBatchesMs());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,16 +1,37 @@
 package com.saga.orderservice.service;
 
+import com.saga.orderservice.admission.AdmissionRejectedException;
+import com.saga.orderservice.client.PaymentServiceClient;
+import com.saga.orderservice.client.PaymentStatus;
+import com.saga.orderservice.config.ArchiveSettings;
 import com.saga.orderservice.dto.OrderRequest;
 import com.saga.orderservice.dto.OrderResponse;
+import com.saga.orderservice.dto.SagaStatsResponse;
+import com.saga.orderservice.entity.IdempotencyRecord;
 import com.saga.orderservice.entity.Order;
 import com.saga.orderservice.entity.OrderStatus;
+import com.saga.orderservice.repository.ArchivedOrderRepository;
+import com.saga.orderservice.repository.IdempotencyRecordRepository;
 import com.saga.orderservice.repository.OrderRepository;
+import feign.FeignException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,11 +39,31 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OrderService {
     
+    private static final Map<String, Comparator<OrderResponse>> SORT_COMPARATORS = Map.of(
+            "id", Comparator.comparing(OrderResponse::getId),
+            "createdAt", Comparator.comparing(OrderResponse::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder())),
+            "updatedAt", Comparator.comparing(OrderResponse::getUpdatedAt, Comparator.nullsFirst(Comparator.naturalOrder())),
+            "totalAmount", Comparator.comparing(OrderResponse::getTotalAmount),
+            "quantity", Comparator.comparing(OrderResponse::getQuantity));
+    private static final Set<String> SORTABLE_PROPERTIES = SORT_COMPARATORS.keySet();
+    private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.DESC, "createdAt");
+    
     private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
     private final SagaOrchestrator sagaOrchestrator;
+    private final SagaStatistics sagaStatistics;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentServiceClient paymentServiceClient;
+    private final ArchiveSettings archiveSettings;
     
-    @Transactional
     public OrderResponse createOrder(OrderRequest request) {
+        return createOrder(request, null, null);
+    }
+    
+    // Sem transação envolvendo a SAGA: o pedido é gravado antes das chamadas remotas,
+    // então o callback assíncrono de pagamento sempre encontra o pedido persistido
+    public OrderResponse createOrder(OrderRequest request, String idempotencyKey, String requestHash) {
         log.info("Creating order for customer: {}", request.getCustomerId());
         
         Order order = new Order();
@@ -32,8 +73,30 @@ public class OrderService {
         order.setTotalAmount(request.getTotalAmount());
         order.setStatus(OrderStatus.PENDING);
         
-        Order savedOrder = orderRepository.save(order);
+        // Vaga na SAGA antes de gravar: com o primeiro estágio saturado a resposta é 429 e nenhum pedido fica órfão
+        if (!sagaOrchestrator.reserveStart()) {
+            log.warn("Saga pipeline saturated, rejecting order for customer: {}", request.getCustomerId());
+            throw new AdmissionRejectedException("Order processing is saturated", 1);
+        }
+        
+        // Pedido e chave de idempotência na mesma transação: uma chave duplicada desfaz o pedido
+        // antes de qualquer chamada remota
+        Order savedOrder;
+        try {
+            savedOrder = transactionTemplate.execute(status -> {
+                Order created = orderRepository.save(order);
+                if (idempotencyKey != null) {
+                    IdempotencyRecord.Key key = new IdempotencyRecord.Key(request.getCustomerId(), idempotencyKey);
+                    idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(key, requestHash, created.getId(), null));
+                }
+                return created;
+            });
+        } catch (RuntimeException e) {
+            sagaOrchestrator.releaseStart();
+            throw e;
+        }
         log.info("Order created with ID: {}", savedOrder.getId());
+        sagaStatistics.recordCreated(savedOrder.getStatus());
         
         // Iniciar o processo SAGA
         sagaOrchestrator.startOrderSaga(savedOrder);
@@ -41,22 +104,74 @@ public class OrderService {
         return mapToResponse(savedOrder);
     }
     
+    @Transactional(readOnly = true)
     public OrderResponse getOrderById(Long id) {
-        Order order = orderRepository.findById(id)
+        // Pedidos terminais antigos foram movidos para orders_archive pelo OrderArchiver
+        return orderRepository.findById(id)
+                .map(this::mapToResponse)
+                .or(() -> archivedOrderRepository.findResponseById(id))
                 .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
-        return mapToResponse(order);
     }
     
+    @Transactional(readOnly = true)
     public List<OrderResponse> getAllOrders() {
         return orderRepository.findAll().stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
     public List<OrderResponse> getOrdersByCustomerId(String customerId) {
-        return orderRepository.findByCustomerId(customerId).stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        List<OrderResponse> responses = new ArrayList<>(orderRepository.findResponsesByCustomerId(customerId));
+        List<OrderResponse> archived = archivedOrderRepository.findResponsesByCustomerId(customerId);
+        if (!archived.isEmpty()) {
+            responses.addAll(archived);
+            responses.sort(Comparator.comparing(OrderResponse::getCreatedAt).reversed());
+        }
+        return responses;
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<OrderResponse> getOrderHistory(String customerId, Pageable pageable) {
+        return mergeWithArchive(withSortableProperties(pageable),
+                page -> orderRepository.findResponsesByCustomerId(customerId, page),
+                page -> archivedOrderRepository.findResponsesByCustomerId(customerId, page));
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<OrderResponse> getOrdersByStatus(OrderStatus status, LocalDateTime from, LocalDateTime to, Pageable pageable) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Parameter 'from' must be before 'to'");
+        }
+        Pageable sorted = withSortableProperties(pageable);
+        // Só pedidos terminais são arquivados
+        if (!status.isTerminal()) {
+            return orderRepository.findResponsesByStatusAndUpdatedAtBetween(status, from, to, sorted);
+        }
+        return mergeWithArchive(sorted,
+                page -> orderRepository.findResponsesByStatusAndUpdatedAtBetween(status, from, to, page),
+                page -> archivedOrderRepository.findResponsesByStatusAndUpdatedAtBetween(status, from, to, page));
+    }
+    
+    public SagaStatsResponse getSagaStats() {
+        return sagaStatistics.snapshot();
+    }
+    
+    // O callback não é autenticado: vale só como aviso, o resultado é lido do payment-service
+    public boolean handlePaymentCallback(Long orderId) {
+        PaymentStatus status;
+        try {
+            status = paymentServiceClient.getPaymentStatus(orderId);
+        } catch (FeignException.NotFound e) {
+            log.warn("Payment callback for order {} ignored: no payment registered", orderId);
+            return false;
+        }
+        if (status == PaymentStatus.PENDING) {
+            log.warn("Payment callback for order {} ignored: payment is still pending", orderId);
+            return false;
+        }
+        log.info("Payment callback for order {}: payment status {}", orderId, status);
+        return sagaOrchestrator.onPaymentResult(orderId, status == PaymentStatus.COMPLETED);
     }
     
     @Transactional
@@ -64,11 +179,63 @@ public class OrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
         
+        OrderStatus previous = order.getStatus();
         order.setStatus(status);
         orderRepository.save(order);
+        sagaStatistics.recordTransition(previous, status);
         log.info("Order {} status updated to: {}", orderId, status);
     }
     
+    // Pagina sobre pedidos quentes + arquivados: cada tabela devolve, na mesma ordenação, o prefixo
+    // até o fim da página pedida; a intercalação desses prefixos contém exatamente a página da união
+    private Page<OrderResponse> mergeWithArchive(Pageable pageable,
+                                                 Function<Pageable, Page<OrderResponse>> live,
+                                                 Function<Pageable, Page<OrderResponse>> archived) {
+        long prefixSize = pageable.getOffset() + pageable.getPageSize();
+        if (prefixSize > archiveSettings.getMaxMergedPageDepth()) {
+            throw new IllegalArgumentException("Page too deep: page * size + size must not exceed "
+                    + archiveSettings.getMaxMergedPageDepth() + "; narrow the query instead");
+        }
+        // Desempate por id para as duas tabelas e a intercalação concordarem na ordem
+        Sort sort = pageable.getSort().getOrderFor("id") != null ? pageable.getSort() : pageable.getSort().and(Sort.by("id"));
+        Pageable prefix = PageRequest.of(0, (int) prefixSize, sort);
+        Page<OrderResponse> livePrefix = live.apply(prefix);
+        Page<OrderResponse> archivedPrefix = archived.apply(prefix);
+        
+        List<OrderResponse> merged = new ArrayList<>(livePrefix.getContent());
+        merged.addAll(archivedPrefix.getContent());
+        merged.sort(comparatorFor(sort));
+        
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        int to = Math.min(from + pageable.getPageSize(), merged.size());
+        return new PageImpl<>(merged.subList(from, to), pageable,
+                livePrefix.getTotalElements() + archivedPrefix.getTotalElements());
+    }
+    
+    private Comparator<OrderResponse> comparatorFor(Sort sort) {
+        Comparator<OrderResponse> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<OrderResponse> next = SORT_COMPARATORS.get(order.getProperty());
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+    
+    private Pageable withSortableProperties(Pageable pageable) {
+        if (pageable.getSort().isUnsorted()) {
+            return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), DEFAULT_SORT);
+        }
+        for (Sort.Order order : pageable.getSort()) {
+            if (!SORTABLE_PROPERTIES.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Unsupported sort property: " + order.getProperty());
+            }
+        }
+        return pageable;
+    }
+    
     private OrderResponse mapToResponse(Order order) {
         OrderResponse response = new OrderResponse();
         response.setId(order.getId());
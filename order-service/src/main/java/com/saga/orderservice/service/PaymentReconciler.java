@@ -0,0 +1,65 @@
+package com.saga.orderservice.service;
+
+import com.saga.orderservice.client.PaymentServiceClient;
+import com.saga.orderservice.config.PaymentReconciliationSettings;
+import com.saga.orderservice.entity.Order;
+import com.saga.orderservice.entity.OrderStatus;
+import com.saga.orderservice.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Varredura dos pedidos cujo callback de pagamento não chegou: reenvia a autorização enquanto
+ * o pedido é recente e, depois do prazo, resolve o pagamento no payment-service.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentReconciler {
+    
+    private final OrderRepository orderRepository;
+    private final PaymentServiceClient paymentServiceClient;
+    private final SagaOrchestrator sagaOrchestrator;
+    private final PaymentReconciliationSettings settings;
+    
+    @Value("${saga.payment.async:false}")
+    private boolean asyncPayment;
+    
+    @Scheduled(fixedDelayString = "${saga.payment.reconciliation.interval-ms:15000}",
+               initialDelayString = "${saga.payment.reconciliation.interval-ms:15000}")
+    public void reconcileStalePayments() {
+        if (!asyncPayment || !settings.isEnabled()) {
+            return;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime deadline = now.minus(settings.getTimeout());
+        List<Order> stale = orderRepository.findByStatusAndUpdatedAtBefore(OrderStatus.PAYMENT_PROCESSING,
+                now.minus(settings.getStaleAfter()), PageRequest.of(0, settings.getBatchSize(), Sort.by("updatedAt")));
+        
+        for (Order order : stale) {
+            try {
+                if (order.getUpdatedAt().isBefore(deadline)) {
+                    // Fecha um PENDING como falho no payment-service; um pagamento já decidido devolve o resultado
+                    boolean approved = paymentServiceClient.resolvePayment(order.getId());
+                    log.warn("Payment callback for order {} timed out, resolved with approved={}", order.getId(), approved);
+                    sagaOrchestrator.onPaymentResult(order.getId(), approved);
+                } else {
+                    // Idempotente no payment-service: reenfileira um pagamento perdido ou repete o callback
+                    paymentServiceClient.authorizePayment(order.getId(), order.getCustomerId(), order.getTotalAmount());
+                    log.info("Re-requested payment result for stale order {}", order.getId());
+                }
+            } catch (Exception e) {
+                log.error("Error reconciling payment for order {}: {}", order.getId(), e.getMessage());
+            }
+        }
+    }
+}
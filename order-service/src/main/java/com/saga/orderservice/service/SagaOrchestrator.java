@@ -1,104 +1,372 @@
 package com.saga.orderservice.service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import com.saga.orderservice.client.InventoryServiceClient;
-import com.saga.orderservice.client.PaymentServiceClient;
+import com.saga.orderservice.config.SagaStageSettings;
 import com.saga.orderservice.entity.Order;
 import com.saga.orderservice.entity.OrderStatus;
 import com.saga.orderservice.repository.OrderRepository;
+import com.saga.orderservice.saga.SagaDefinition;
+import com.saga.orderservice.saga.SagaMessage;
+import com.saga.orderservice.saga.SagaStage;
+import com.saga.orderservice.saga.SagaStep;
+import com.saga.orderservice.saga.StepOutcome;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Executa a SAGA em estágios: um estágio por passo da {@link SagaDefinition} e um estágio final
+ * que conclui ou compensa. Cada pedido percorre os estágios como mensagem, então um serviço lento
+ * só acumula fila no próprio estágio. As filas vivem só em memória: na subida, os pedidos não
+ * terminais são reenfileirados a partir do status gravado.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
-public class SagaOrchestrator {
-    
-    private final PaymentServiceClient paymentServiceClient;
-    private final InventoryServiceClient inventoryServiceClient;
+public class SagaOrchestrator implements SmartInitializingSingleton {
+
+    private static final String FINALIZE_STAGE = "finalize";
+    private static final int RECOVERY_BATCH_SIZE = 500;
+
+    private final SagaDefinition definition;
     private final OrderRepository orderRepository;
-    
+    private final SagaStatistics statistics;
+    private final SagaStageSettings settings;
+    private final List<SagaStage> stepStages = new ArrayList<>();
+    private final SagaStage finalizeStage;
+
+    public SagaOrchestrator(SagaDefinition definition,
+                            OrderRepository orderRepository,
+                            SagaStatistics statistics,
+                            SagaStageSettings settings,
+                            MeterRegistry meterRegistry) {
+        this.definition = definition;
+        this.orderRepository = orderRepository;
+        this.statistics = statistics;
+        this.settings = settings;
+        for (int i = 0; i < definition.size(); i++) {
+            int stepIndex = i;
+            String name = definition.step(i).getName();
+            stepStages.add(new SagaStage(name, settings.forStage(name),
+                    batch -> executeStep(stepIndex, batch), meterRegistry));
+        }
+        this.finalizeStage = new SagaStage(FINALIZE_STAGE, settings.forStage(FINALIZE_STAGE),
+                this::finalizeSagas, meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        stepStages.forEach(SagaStage::start);
+        finalizeStage.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        for (SagaStage stage : stepStages) {
+            stage.stop();
+        }
+        finalizeStage.stop();
+    }
+
+    // Roda antes de o servidor aceitar requisições, então não disputa pedidos com chamadas novas
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<OrderStatus, Function<Order, SagaMessage>> resumeFrom = new EnumMap<>(OrderStatus.class);
+        resumeFrom.put(OrderStatus.PENDING, order -> SagaMessage.execute(order.getId(), 0));
+        for (int i = 0; i < definition.size(); i++) {
+            int stepIndex = i;
+            SagaStep step = definition.step(i);
+            // Não se sabe se o serviço remoto chegou a executar: o passo roda de novo, e os serviços
+            // deduplicam pelo orderId (pagamento único por pedido, reserva de estoque por pedido)
+            resumeFrom.put(step.getProcessingStatus(), order -> SagaMessage.execute(order.getId(), stepIndex));
+            resumeFrom.put(step.getCompletedStatus(), order -> advance(order.getId(), stepIndex));
+        }
+        // As compensações também são idempotentes por pedido: repetir as que já rodaram não desfaz nada duas vezes
+        resumeFrom.put(OrderStatus.COMPENSATING, order -> SagaMessage.compensate(order.getId()));
+
+        // Lê tudo antes de enfileirar: um pedido que avança enquanto a leitura continua não entra duas vezes
+        List<SagaMessage> recovered = new ArrayList<>();
+        for (Map.Entry<OrderStatus, Function<Order, SagaMessage>> entry : resumeFrom.entrySet()) {
+            long afterId = 0;
+            List<Order> orders;
+            do {
+                orders = orderRepository.findByStatusAndIdGreaterThan(entry.getKey(), afterId,
+                        PageRequest.of(0, RECOVERY_BATCH_SIZE));
+                for (Order order : orders) {
+                    recovered.add(entry.getValue().apply(order));
+                    afterId = order.getId();
+                }
+            } while (orders.size() == RECOVERY_BATCH_SIZE);
+        }
+        statistics.seed();
+        recovered.forEach(this::route);
+        if (!recovered.isEmpty()) {
+            log.info("Re-enqueued {} in-flight sagas", recovered.size());
+        }
+    }
+
+    // Reserva a vaga no primeiro estágio antes de o pedido ser gravado; sem vaga, o chamador recusa o pedido
+    public boolean reserveStart() {
+        return stepStages.get(0).tryReserve(settings.getStartTimeoutMs());
+    }
+
+    public void releaseStart() {
+        stepStages.get(0).releaseReservation();
+    }
+
+    // Exige uma vaga obtida com reserveStart: não bloqueia a thread da requisição
     public void startOrderSaga(Order order) {
         log.info("Starting SAGA for order: {}", order.getId());
-        
+        stepStages.get(0).submitReserved(SagaMessage.execute(order.getId(), 0));
+    }
+
+    public boolean onPaymentResult(Long orderId, boolean approved) {
+        return resume(orderId, "payment", approved);
+    }
+
+    // Retoma um passo que ficou aguardando callback
+    public boolean resume(Long orderId, String stepName, boolean succeeded) {
+        int stepIndex = definition.indexOf(stepName);
+        SagaStep step = definition.step(stepIndex);
+
+        // Callbacks repetidos ou atrasados não podem avançar a SAGA duas vezes
+        boolean resumed = succeeded
+                ? transition(orderId, step.getProcessingStatus(), step.getCompletedStatus())
+                : startCompensation(orderId, step.getProcessingStatus(), stepIndex, step.getFailedStatus());
+        if (!resumed) {
+            if (succeeded) {
+                compensateLateSuccess(orderId, step);
+            } else {
+                log.warn("Ignoring {} result for order {}: order is not awaiting it", stepName, orderId);
+            }
+            return false;
+        }
+
+        log.info("Step {} for order {} finished via callback: succeeded={}", stepName, orderId, succeeded);
+        if (succeeded) {
+            route(advance(orderId, stepIndex));
+        }
+        return true;
+    }
+
+    // Cada pedido segue para o próximo estágio assim que o próprio passo termina, sem esperar o lote
+    private void executeStep(int stepIndex, List<SagaMessage> batch) {
+        SagaStep step = definition.step(stepIndex);
+        Map<Long, Order> orders;
+        try {
+            orders = loadOrders(batch);
+        } catch (Exception e) {
+            // Nada foi gravado nem chamado: os pedidos continuam no status anterior
+            log.error("Error loading {} orders for step {}, they will be recovered on restart: {}",
+                    batch.size(), step.getName(), e.getMessage());
+            return;
+        }
+
+        for (SagaMessage message : batch) {
+            Order order = orders.get(message.getOrderId());
+            if (order == null) {
+                continue;
+            }
+            try {
+                runStep(stepIndex, step, order);
+            } catch (Exception e) {
+                // Falha ao gravar: o status gravado continua sendo o anterior e a recuperação repete o passo
+                log.error("Error in SAGA step {} for order {}, it will be recovered on restart: {}",
+                        step.getName(), order.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void runStep(int stepIndex, SagaStep step, Order order) {
+        // Só quem move o pedido do status de entrada executa o passo; na recuperação ele já está em processamento
+        if (order.getStatus() != step.getProcessingStatus()
+                && !transition(order.getId(), entryStatus(stepIndex), step.getProcessingStatus())) {
+            log.warn("Skipping step {} for order {} in {}", step.getName(), order.getId(), order.getStatus());
+            return;
+        }
+
+        log.info("Step {}: {} for order {}", stepIndex + 1, step.getName(), order.getId());
+        StepOutcome outcome;
         try {
-            // Passo 1: Processar pagamento
-            log.info("Step 1: Processing payment for order {}", order.getId());
-            updateOrderStatus(order.getId(), OrderStatus.PAYMENT_PROCESSING);
-            
-            boolean paymentProcessed = paymentServiceClient.processPayment(
-                order.getId(),
-                order.getCustomerId(),
-                order.getTotalAmount()
-            );
-            
-            if (!paymentProcessed) {
-                log.error("Payment failed for order {}", order.getId());
-                updateOrderStatus(order.getId(), OrderStatus.PAYMENT_FAILED);
-                return;
+            outcome = step.getAction().apply(order);
+        } catch (Exception e) {
+            log.error("Error in SAGA step {} for order {}: {}", step.getName(), order.getId(), e.getMessage());
+            // A chamada pode ter chegado ao serviço remoto: a compensação (idempotente por pedido) inclui o passo
+            startCompensation(order.getId(), step.getProcessingStatus(), stepIndex + 1, OrderStatus.CANCELLED);
+            return;
+        }
+
+        switch (outcome) {
+            case SUCCEEDED -> {
+                if (transition(order.getId(), step.getProcessingStatus(), step.getCompletedStatus())) {
+                    route(advance(order.getId(), stepIndex));
+                } else {
+                    log.warn("Order {} left {} while running step {}", order.getId(), step.getProcessingStatus(), step.getName());
+                }
+            }
+            case FAILED -> {
+                log.error("Step {} failed for order {}", step.getName(), order.getId());
+                startCompensation(order.getId(), step.getProcessingStatus(), stepIndex, step.getFailedStatus());
+            }
+            case AWAITING_CALLBACK -> log.info("Step {} for order {} awaiting callback", step.getName(), order.getId());
+        }
+    }
+
+    private void finalizeSagas(List<SagaMessage> batch) {
+        Map<Long, Order> orders;
+        try {
+            orders = loadOrders(batch);
+        } catch (Exception e) {
+            log.error("Error loading {} orders to finalize, they will be recovered on restart: {}",
+                    batch.size(), e.getMessage());
+            return;
+        }
+
+        for (SagaMessage message : batch) {
+            Order order = orders.get(message.getOrderId());
+            if (order == null) {
+                continue;
             }
-            
-            updateOrderStatus(order.getId(), OrderStatus.PAYMENT_COMPLETED);
-            log.info("Payment completed for order {}", order.getId());
-            
-            // Passo 2: Atualizar inventário
-            log.info("Step 2: Updating inventory for order {}", order.getId());
-            updateOrderStatus(order.getId(), OrderStatus.INVENTORY_PROCESSING);
-            
-            boolean inventoryUpdated = inventoryServiceClient.updateInventory(
-                order.getProductId(),
-                order.getQuantity()
-            );
-            
-            if (!inventoryUpdated) {
-                log.error("Inventory update failed for order {}", order.getId());
-                // Compensar: reembolsar pagamento
-                paymentServiceClient.refundPayment(order.getId());
-                updateOrderStatus(order.getId(), OrderStatus.INVENTORY_FAILED);
-                return;
+            try {
+                switch (message.getType()) {
+                    case COMPLETE -> complete(order);
+                    case COMPENSATE -> finishCompensation(order);
+                    default -> log.warn("Unexpected message {} in finalize stage", message);
+                }
+            } catch (Exception e) {
+                // O pedido continua não terminal e volta na recuperação da subida
+                log.error("Could not finalize order {}, it will be recovered on restart: {}", order.getId(), e.getMessage());
             }
-            
-            updateOrderStatus(order.getId(), OrderStatus.INVENTORY_COMPLETED);
-            log.info("Inventory updated for order {}", order.getId());
-            
-            // Sucesso: completar ordem
-            updateOrderStatus(order.getId(), OrderStatus.COMPLETED);
+        }
+    }
+
+    private void complete(Order order) {
+        OrderStatus lastCompleted = definition.step(definition.size() - 1).getCompletedStatus();
+        if (transition(order.getId(), lastCompleted, OrderStatus.COMPLETED)) {
             log.info("SAGA completed successfully for order {}", order.getId());
-            
+        } else {
+            log.warn("Ignoring completion of order {} in {}", order.getId(), order.getStatus());
+        }
+    }
+
+    // O status final só é gravado depois das compensações: se a instância parar no meio, o pedido
+    // continua em COMPENSATING e a recuperação repete as compensações
+    private void finishCompensation(Order order) {
+        if (order.getStatus() != OrderStatus.COMPENSATING) {
+            log.warn("Ignoring compensation of order {} in {}", order.getId(), order.getStatus());
+            return;
+        }
+        if (!compensate(order, order.getFailedStep())) {
+            log.error("Compensation of order {} incomplete, it will be retried on restart", order.getId());
+            return;
+        }
+        if (transition(order.getId(), OrderStatus.COMPENSATING, order.getFailureStatus())) {
+            log.info("Order {} compensated, finished as {}", order.getId(), order.getFailureStatus());
+        }
+    }
+
+    // Desfaz em ordem reversa os passos abaixo de failedStep; devolve false se alguma compensação falhou
+    private boolean compensate(Order order, int failedStep) {
+        boolean compensated = true;
+        for (int i = failedStep - 1; i >= 0; i--) {
+            SagaStep step = definition.step(i);
+            if (step.getCompensation() == null) {
+                continue;
+            }
+            try {
+                log.info("Compensating step {} for order {}", step.getName(), order.getId());
+                step.getCompensation().accept(order);
+            } catch (Exception e) {
+                compensated = false;
+                log.error("Error during SAGA compensation of step {} for order {}: {}",
+                        step.getName(), order.getId(), e.getMessage());
+            }
+        }
+        return compensated;
+    }
+
+    // O passo deu certo no serviço remoto depois de o pedido ser encerrado sem ele (cancelamento,
+    // timeout): sem desfazer aqui, uma cobrança aprovada tarde nunca seria estornada
+    private void compensateLateSuccess(Long orderId, SagaStep step) {
+        Order order = orderRepository.findById(orderId).orElse(null);
+        boolean closedWithoutStep = order != null && (order.getStatus() == OrderStatus.COMPENSATING
+                || order.getStatus().isTerminal() && order.getStatus() != OrderStatus.COMPLETED);
+        if (!closedWithoutStep || step.getCompensation() == null) {
+            log.warn("Ignoring {} result for order {}: order is not awaiting it", step.getName(), orderId);
+            return;
+        }
+        log.warn("Step {} succeeded late for order {} already in {}, compensating it",
+                step.getName(), orderId, order.getStatus());
+        try {
+            step.getCompensation().accept(order);
         } catch (Exception e) {
-            log.error("Error in SAGA for order {}: {}", order.getId(), e.getMessage());
-            handleSagaFailure(order);
+            log.error("Error during SAGA compensation of step {} for order {}: {}",
+                    step.getName(), orderId, e.getMessage());
         }
     }
-    
-    private void handleSagaFailure(Order order) {
-        log.info("Handling SAGA failure for order {}", order.getId());
-        
+
+    // Transição condicional: perde para qualquer outra escrita que tenha movido o pedido antes.
+    // As estatísticas só contam a transição depois que ela foi gravada.
+    private boolean transition(Long orderId, OrderStatus from, OrderStatus to) {
+        if (orderRepository.transitionStatus(orderId, from, to, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        statistics.recordTransition(from, to);
+        return true;
+    }
+
+    private boolean startCompensation(Long orderId, OrderStatus from, int failedStep, OrderStatus failureStatus) {
+        if (orderRepository.startCompensation(orderId, from, failedStep, failureStatus, LocalDateTime.now()) == 0) {
+            log.warn("Order {} left {} before its compensation could start", orderId, from);
+            return false;
+        }
+        statistics.recordTransition(from, OrderStatus.COMPENSATING);
+        if (failedStep > 0) {
+            statistics.recordCompensation();
+        }
+        route(SagaMessage.compensate(orderId));
+        return true;
+    }
+
+    private OrderStatus entryStatus(int stepIndex) {
+        return stepIndex == 0 ? OrderStatus.PENDING : definition.step(stepIndex - 1).getCompletedStatus();
+    }
+
+    private SagaMessage advance(Long orderId, int completedStep) {
+        int nextStep = completedStep + 1;
+        return nextStep < definition.size()
+                ? SagaMessage.execute(orderId, nextStep)
+                : SagaMessage.complete(orderId);
+    }
+
+    private void route(SagaMessage message) {
         try {
-            // Compensar pagamento se necessário
-            if (order.getStatus() == OrderStatus.PAYMENT_COMPLETED || 
-                order.getStatus() == OrderStatus.INVENTORY_PROCESSING ||
-                order.getStatus() == OrderStatus.INVENTORY_FAILED) {
-                
-                log.info("Refunding payment for order {}", order.getId());
-                paymentServiceClient.refundPayment(order.getId());
+            if (message.getType() == SagaMessage.Type.EXECUTE) {
+                stepStages.get(message.getStepIndex()).submit(message);
+            } else {
+                finalizeStage.submit(message);
             }
-            
-            // Cancelar ordem
-            updateOrderStatus(order.getId(), OrderStatus.CANCELLED);
-            log.info("Order {} cancelled due to SAGA failure", order.getId());
-            
         } catch (Exception e) {
-            log.error("Error during SAGA compensation for order {}: {}", order.getId(), e.getMessage());
+            // Só acontece no desligamento; o status gravado permite retomar o pedido na subida
+            log.error("Could not route {}, it will be recovered on restart: {}", message, e.getMessage());
         }
     }
 
-    private void updateOrderStatus(Long orderId, OrderStatus status) {
-        orderRepository.findById(orderId).ifPresent(order -> {
-            order.setStatus(status);
-            orderRepository.save(order);
-        });
+    private Map<Long, Order> loadOrders(List<SagaMessage> batch) {
+        List<Long> ids = batch.stream().map(SagaMessage::getOrderId).distinct().toList();
+        return orderRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
     }
 }
@@ -0,0 +1,217 @@
+package com.saga.orderservice.service;
+
+import com.saga.orderservice.dto.SagaStatsResponse;
+import com.saga.orderservice.entity.OrderStatus;
+import com.saga.orderservice.repository.ArchivedOrderRepository;
+import com.saga.orderservice.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores da SAGA mantidos em memória a cada transição de status, para o painel não
+ * precisar varrer a tabela de pedidos. Semeado do banco uma vez, antes do servidor aceitar requisições.
+ */
+@Slf4j
+@Component
+public class SagaStatistics implements SmartInitializingSingleton {
+    
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final int CREATED = 0;
+    private static final int COMPLETED = 1;
+    private static final int FAILED = 2;
+    private static final int COMPENSATED = 3;
+    
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final LongAdder[] byStatus = new LongAdder[STATUSES.length];
+    // Linha 0 = pedido criado (sem status anterior); linha i + 1 = transição a partir de STATUSES[i]
+    private final LongAdder[][] transitions = new LongAdder[STATUSES.length + 1][STATUSES.length];
+    private final SlidingWindow window;
+    private final AtomicBoolean seeded = new AtomicBoolean();
+    
+    public SagaStatistics(OrderRepository orderRepository,
+                          ArchivedOrderRepository archivedOrderRepository,
+                          @Value("${orders.stats.window-seconds:60}") int windowSeconds) {
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.window = new SlidingWindow(windowSeconds, 4);
+        for (int i = 0; i < STATUSES.length; i++) {
+            byStatus[i] = new LongAdder();
+        }
+        for (LongAdder[] row : transitions) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = new LongAdder();
+            }
+        }
+    }
+    
+    @Override
+    public void afterSingletonsInstantiated() {
+        seed();
+    }
+    
+    // Chamado também pela recuperação da SAGA, que precisa dos contadores semeados antes de mover pedidos
+    public void seed() {
+        if (!seeded.compareAndSet(false, true)) {
+            return;
+        }
+        // Pedidos arquivados mantêm o status, então também contam
+        addCounts(orderRepository.countGroupedByStatus());
+        addCounts(archivedOrderRepository.countGroupedByStatus());
+        log.info("Saga statistics seeded with {} orders", totalOrders());
+    }
+    
+    public void recordCreated(OrderStatus status) {
+        byStatus[status.ordinal()].increment();
+        transitions[0][status.ordinal()].increment();
+        window.increment(CREATED);
+    }
+    
+    public void recordTransition(OrderStatus from, OrderStatus to) {
+        if (from == to) {
+            return;
+        }
+        byStatus[from.ordinal()].decrement();
+        byStatus[to.ordinal()].increment();
+        transitions[from.ordinal() + 1][to.ordinal()].increment();
+        
+        if (to == OrderStatus.COMPLETED) {
+            window.increment(COMPLETED);
+        } else if (to.isTerminal()) {
+            window.increment(FAILED);
+        }
+    }
+    
+    public void recordCompensation() {
+        window.increment(COMPENSATED);
+    }
+    
+    public SagaStatsResponse snapshot() {
+        Map<OrderStatus, Long> ordersByStatus = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : STATUSES) {
+            ordersByStatus.put(status, byStatus[status.ordinal()].sum());
+        }
+        
+        Map<String, Long> transitionCounts = new LinkedHashMap<>();
+        for (int from = 0; from < transitions.length; from++) {
+            for (int to = 0; to < STATUSES.length; to++) {
+                long count = transitions[from][to].sum();
+                if (count > 0) {
+                    String source = from == 0 ? "NEW" : STATUSES[from - 1].name();
+                    transitionCounts.put(source + "->" + STATUSES[to].name(), count);
+                }
+            }
+        }
+        
+        long[] windowSums = window.sums();
+        long terminal = windowSums[COMPLETED] + windowSums[FAILED];
+        
+        SagaStatsResponse response = new SagaStatsResponse();
+        response.setTotalOrders(totalOrders());
+        response.setOrdersByStatus(ordersByStatus);
+        response.setTransitions(transitionCounts);
+        response.setWindowSeconds(window.getSeconds());
+        response.setOrdersPerSecond((double) windowSums[CREATED] / window.getSeconds());
+        response.setFailureRatio(terminal == 0 ? 0.0 : (double) windowSums[FAILED] / terminal);
+        response.setCompensationRatio(terminal == 0 ? 0.0 : (double) windowSums[COMPENSATED] / terminal);
+        return response;
+    }
+    
+    private long totalOrders() {
+        long total = 0;
+        for (LongAdder adder : byStatus) {
+            total += adder.sum();
+        }
+        return total;
+    }
+    
+    private void addCounts(List<Object[]> counts) {
+        for (Object[] row : counts) {
+            byStatus[((OrderStatus) row[0]).ordinal()].add(((Number) row[1]).longValue());
+        }
+    }
+    
+    /**
+     * Janela deslizante de um slot por segundo. O slot de um segundo vencido é zerado pelo primeiro
+     * evento que cai nele; a leitura soma só os slots ainda dentro da janela.
+     */
+    static final class SlidingWindow {
+        
+        private final int seconds;
+        private final Slot[] slots;
+        
+        SlidingWindow(int seconds, int counters) {
+            if (seconds < 1) {
+                throw new IllegalArgumentException("orders.stats.window-seconds must be at least 1");
+            }
+            this.seconds = seconds;
+            this.slots = new Slot[seconds];
+            for (int i = 0; i < seconds; i++) {
+                slots[i] = new Slot(counters);
+            }
+        }
+        
+        int getSeconds() {
+            return seconds;
+        }
+        
+        void increment(int counter) {
+            long now = currentSecond();
+            Slot slot = slots[Math.floorMod(now, seconds)];
+            if (slot.epochSecond != now) {
+                slot.reset(now);
+            }
+            slot.counters[counter].increment();
+        }
+        
+        long[] sums() {
+            long now = currentSecond();
+            long[] sums = new long[slots[0].counters.length];
+            for (Slot slot : slots) {
+                if (slot.epochSecond > now - seconds) {
+                    for (int i = 0; i < sums.length; i++) {
+                        sums[i] += slot.counters[i].sum();
+                    }
+                }
+            }
+            return sums;
+        }
+        
+        private static long currentSecond() {
+            return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        }
+        
+        private static final class Slot {
+            
+            private volatile long epochSecond = Long.MIN_VALUE;
+            private final LongAdder[] counters;
+            
+            private Slot(int counters) {
+                this.counters = new LongAdder[counters];
+                for (int i = 0; i < counters; i++) {
+                    this.counters[i] = new LongAdder();
+                }
+            }
+            
+            // Só a virada de segundo sincroniza; incrementos no segundo corrente seguem sem lock
+            private synchronized void reset(long second) {
+                if (epochSecond != second) {
+                    for (LongAdder counter : counters) {
+                        counter.reset();
+                    }
+                    epochSecond = second;
+                }
+            }
+        }
+    }
+}
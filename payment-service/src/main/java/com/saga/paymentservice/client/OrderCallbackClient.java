@@ -0,0 +1,60 @@
+package com.saga.paymentservice.client;
+
+import java.time.Duration;
+
+import org.springframework.boot.web.client.ClientHttpRequestFactories;
+import org.springframework.boot.web.client.ClientHttpRequestFactorySettings;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import com.saga.paymentservice.config.AsyncPaymentSettings;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+public class OrderCallbackClient {
+    
+    private final RestClient restClient;
+    private final AsyncPaymentSettings settings;
+    
+    public OrderCallbackClient(RestClient.Builder restClientBuilder, AsyncPaymentSettings settings) {
+        ClientHttpRequestFactorySettings requestSettings = ClientHttpRequestFactorySettings.DEFAULTS
+                .withConnectTimeout(Duration.ofMillis(settings.getCallbackConnectTimeoutMs()))
+                .withReadTimeout(Duration.ofMillis(settings.getCallbackReadTimeoutMs()));
+        this.restClient = restClientBuilder
+                .requestFactory(ClientHttpRequestFactories.get(requestSettings))
+                .build();
+        this.settings = settings;
+    }
+    
+    public boolean notifyPaymentResult(Long orderId, boolean approved) {
+        for (int attempt = 1; attempt <= settings.getCallbackAttempts(); attempt++) {
+            try {
+                restClient.post()
+                        .uri(settings.getCallbackUrl() + "?approved={approved}", orderId, approved)
+                        .retrieve()
+                        .toBodilessEntity();
+                log.info("Order service notified of payment result for order {}: approved={}", orderId, approved);
+                return true;
+            } catch (Exception e) {
+                log.warn("Callback attempt {} for order {} failed: {}", attempt, orderId, e.getMessage());
+                if (!backOff(attempt)) {
+                    break;
+                }
+            }
+        }
+        log.error("Giving up on payment callback for order {}", orderId);
+        return false;
+    }
+    
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(settings.getCallbackBackoffMs() * attempt);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
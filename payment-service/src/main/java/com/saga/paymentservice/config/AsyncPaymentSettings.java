@@ -0,0 +1,31 @@
+package com.saga.paymentservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "payment.async")
+public class AsyncPaymentSettings {
+    
+    private int workers = 4;
+    
+    // Máximo de autorizações enviadas ao gateway em uma única chamada
+    private int batchSize = 20;
+    
+    private int queueCapacity = 1000;
+    
+    private String callbackUrl = "http://localhost:8080/api/orders/{orderId}/payment-callback";
+    
+    // Threads dedicadas ao envio dos callbacks, separadas dos workers de autorização
+    private int callbackWorkers = 4;
+    
+    private int callbackAttempts = 3;
+    
+    private long callbackBackoffMs = 200;
+    
+    // Um order-service travado não pode prender os workers de autorização
+    private long callbackConnectTimeoutMs = 1000;
+    
+    private long callbackReadTimeoutMs = 2000;
+}
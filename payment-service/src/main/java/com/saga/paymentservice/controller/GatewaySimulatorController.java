@@ -0,0 +1,34 @@
+package com.saga.paymentservice.controller;
+
+import com.saga.paymentservice.gateway.GatewaySimulatorSettings;
+import com.saga.paymentservice.gateway.SimulatedPaymentGateway;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/gateway")
+@RequiredArgsConstructor
+@Slf4j
+public class GatewaySimulatorController {
+    
+    private final SimulatedPaymentGateway simulatedPaymentGateway;
+    
+    @GetMapping
+    public ResponseEntity<GatewaySimulatorSettings> getSettings() {
+        return ResponseEntity.ok(simulatedPaymentGateway.getSettings());
+    }
+    
+    @PutMapping
+    public ResponseEntity<GatewaySimulatorSettings> updateSettings(@RequestBody GatewaySimulatorSettings settings) {
+        log.info("Received gateway simulator update: {}", settings);
+        simulatedPaymentGateway.updateSettings(settings);
+        return ResponseEntity.ok(simulatedPaymentGateway.getSettings());
+    }
+    
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
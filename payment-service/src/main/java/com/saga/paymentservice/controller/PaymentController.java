@@ -1,5 +1,7 @@
 package com.saga.paymentservice.controller;
 
+import com.saga.paymentservice.entity.PaymentStatus;
+import com.saga.paymentservice.service.AsyncPaymentService;
 import com.saga.paymentservice.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -7,6 +9,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/payments")
@@ -15,6 +18,7 @@ import java.math.BigDecimal;
 public class PaymentController {
     
     private final PaymentService paymentService;
+    private final AsyncPaymentService asyncPaymentService;
     
     @PostMapping("/process")
     public ResponseEntity<Boolean> processPayment(@RequestParam("orderId") Long orderId,
@@ -25,10 +29,41 @@ public class PaymentController {
         return ResponseEntity.ok(result);
     }
     
+    @PostMapping("/authorize")
+    public ResponseEntity<Boolean> authorizePayment(@RequestParam("orderId") Long orderId,
+                                                    @RequestParam("customerId") String customerId,
+                                                    @RequestParam("amount") BigDecimal amount) {
+        log.info("Received async payment request for order: {}, customer: {}, amount: {}", orderId, customerId, amount);
+        boolean accepted = asyncPaymentService.submitPayment(orderId, customerId, amount);
+        return ResponseEntity.accepted().body(accepted);
+    }
+    
     @PostMapping("/refund")
     public ResponseEntity<Boolean> refundPayment(@RequestParam("orderId") Long orderId) {
         log.info("Received refund request for order: {}", orderId);
         boolean result = paymentService.refundPayment(orderId);
         return ResponseEntity.ok(result);
     }
+    
+    @PostMapping("/resolve")
+    public ResponseEntity<Boolean> resolvePayment(@RequestParam("orderId") Long orderId) {
+        log.info("Received resolve request for order: {}", orderId);
+        boolean approved = paymentService.resolvePayment(orderId);
+        return ResponseEntity.ok(approved);
+    }
+    
+    // Fonte do resultado para o order-service: o callback só avisa que o pagamento foi decidido
+    @GetMapping("/status")
+    public ResponseEntity<PaymentStatus> getPaymentStatus(@RequestParam("orderId") Long orderId) {
+        return paymentService.findPayment(orderId)
+                .map(payment -> ResponseEntity.ok(payment.getStatus()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @PostMapping("/archive")
+    public ResponseEntity<Integer> archivePayments(@RequestBody List<Long> orderIds) {
+        log.info("Received archive request for {} orders", orderIds.size());
+        int archived = paymentService.archivePayments(orderIds);
+        return ResponseEntity.ok(archived);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.saga.paymentservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "payments_archive")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedPayment {
+    @Id
+    private Long id;
+    
+    @Column(nullable = false, unique = true)
+    private Long orderId;
+    
+    @Column(nullable = false)
+    private String customerId;
+    
+    @Column(nullable = false)
+    private BigDecimal amount;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PaymentStatus status;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    private LocalDateTime updatedAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,12 @@
+package com.saga.paymentservice.gateway;
+
+import java.math.BigDecimal;
+
+import lombok.Value;
+
+@Value
+public class AuthorizationRequest {
+    Long orderId;
+    String customerId;
+    BigDecimal amount;
+}
@@ -0,0 +1,11 @@
+package com.saga.paymentservice.gateway;
+
+public enum GatewayResult {
+    APPROVED,
+    DECLINED,
+    TIMEOUT;
+    
+    public boolean isApproved() {
+        return this == APPROVED;
+    }
+}
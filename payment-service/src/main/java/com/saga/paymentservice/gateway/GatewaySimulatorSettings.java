@@ -0,0 +1,61 @@
+package com.saga.paymentservice.gateway;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "payment.gateway.simulator")
+public class GatewaySimulatorSettings {
+    
+    private LatencyDistribution latencyDistribution = LatencyDistribution.FIXED;
+    
+    // FIXED: latência constante; NORMAL: média da distribuição
+    private long latencyMs = 0;
+    
+    private long latencyStdDevMs = 0;
+    
+    // PARETO: latência mínima (escala) e forma; formas menores geram caudas mais longas
+    private long paretoScaleMs = 50;
+    
+    private double paretoShape = 1.5;
+    
+    private double failureRate = 0.1;
+    
+    private double refundFailureRate = 0.05;
+    
+    // Chamadas que passariam deste limite terminam em TIMEOUT; 0 desativa
+    private long timeoutMs = 0;
+    
+    // Semente fixa torna reproduzíveis a latência e o resultado de cada pedido, mesmo sob carga concorrente
+    private Long seed;
+    
+    public GatewaySimulatorSettings copy() {
+        GatewaySimulatorSettings copy = new GatewaySimulatorSettings();
+        copy.setLatencyDistribution(latencyDistribution);
+        copy.setLatencyMs(latencyMs);
+        copy.setLatencyStdDevMs(latencyStdDevMs);
+        copy.setParetoScaleMs(paretoScaleMs);
+        copy.setParetoShape(paretoShape);
+        copy.setFailureRate(failureRate);
+        copy.setRefundFailureRate(refundFailureRate);
+        copy.setTimeoutMs(timeoutMs);
+        copy.setSeed(seed);
+        return copy;
+    }
+    
+    public void validate() {
+        if (latencyDistribution == null) {
+            throw new IllegalArgumentException("latencyDistribution is required");
+        }
+        if (latencyMs < 0 || latencyStdDevMs < 0 || paretoScaleMs < 0 || timeoutMs < 0) {
+            throw new IllegalArgumentException("Latencies and timeout must not be negative");
+        }
+        if (paretoShape <= 0) {
+            throw new IllegalArgumentException("paretoShape must be positive");
+        }
+        if (failureRate < 0 || failureRate > 1 || refundFailureRate < 0 || refundFailureRate > 1) {
+            throw new IllegalArgumentException("Failure rates must be between 0 and 1");
+        }
+    }
+}
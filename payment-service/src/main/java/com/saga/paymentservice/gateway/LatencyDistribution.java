@@ -0,0 +1,7 @@
+package com.saga.paymentservice.gateway;
+
+public enum LatencyDistribution {
+    FIXED,
+    NORMAL,
+    PARETO
+}
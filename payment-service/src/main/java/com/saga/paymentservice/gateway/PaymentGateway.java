@@ -0,0 +1,18 @@
+package com.saga.paymentservice.gateway;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface PaymentGateway {
+    
+    GatewayResult authorize(Long orderId, String customerId, BigDecimal amount);
+    
+    GatewayResult refund(Long orderId, BigDecimal amount);
+    
+    // Gateways sem API de lote recebem as autorizações uma a uma
+    default List<GatewayResult> authorizeBatch(List<AuthorizationRequest> requests) {
+        return requests.stream()
+                .map(request -> authorize(request.getOrderId(), request.getCustomerId(), request.getAmount()))
+                .toList();
+    }
+}
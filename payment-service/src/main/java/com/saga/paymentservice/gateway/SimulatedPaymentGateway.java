@@ -0,0 +1,140 @@
+package com.saga.paymentservice.gateway;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Component
+public class SimulatedPaymentGateway implements PaymentGateway {
+    
+    // Autorização e reembolso do mesmo pedido sorteiam de sequências diferentes
+    private static final long AUTHORIZE_STREAM = 0L;
+    private static final long REFUND_STREAM = 0x5DEECE66DL;
+    
+    private volatile Simulation simulation;
+    
+    public SimulatedPaymentGateway(GatewaySimulatorSettings settings) {
+        settings.validate();
+        this.simulation = new Simulation(settings.copy());
+    }
+    
+    @Override
+    public GatewayResult authorize(Long orderId, String customerId, BigDecimal amount) {
+        Simulation current = simulation;
+        GatewayResult result = current.call(orderId, current.settings.getFailureRate(), AUTHORIZE_STREAM);
+        log.debug("Simulated gateway authorization for order {}: {}", orderId, result);
+        return result;
+    }
+    
+    @Override
+    public GatewayResult refund(Long orderId, BigDecimal amount) {
+        Simulation current = simulation;
+        GatewayResult result = current.call(orderId, current.settings.getRefundFailureRate(), REFUND_STREAM);
+        log.debug("Simulated gateway refund for order {}: {}", orderId, result);
+        return result;
+    }
+    
+    @Override
+    public List<GatewayResult> authorizeBatch(List<AuthorizationRequest> requests) {
+        Simulation current = simulation;
+        List<Long> orderIds = requests.stream().map(AuthorizationRequest::getOrderId).toList();
+        List<GatewayResult> results = current.callBatch(orderIds, current.settings.getFailureRate(), AUTHORIZE_STREAM);
+        log.debug("Simulated gateway batch authorization of {} payments", requests.size());
+        return results;
+    }
+    
+    public GatewaySimulatorSettings getSettings() {
+        return simulation.settings.copy();
+    }
+    
+    public void updateSettings(GatewaySimulatorSettings settings) {
+        settings.validate();
+        simulation = new Simulation(settings.copy());
+        log.info("Payment gateway simulator reconfigured: {}", settings);
+    }
+    
+    private static final class Simulation {
+        
+        private final GatewaySimulatorSettings settings;
+        
+        private Simulation(GatewaySimulatorSettings settings) {
+            this.settings = settings;
+        }
+        
+        private GatewayResult call(Long orderId, double failureRate, long stream) {
+            return callBatch(List.of(orderId), failureRate, stream).get(0);
+        }
+        
+        // Um lote paga uma única ida e volta ao gateway (latência sorteada pelo primeiro pedido);
+        // a recusa continua sendo por item
+        private List<GatewayResult> callBatch(List<Long> orderIds, double failureRate, long stream) {
+            long latencyMs = 0;
+            List<GatewayResult> results = new ArrayList<>(orderIds.size());
+            for (int i = 0; i < orderIds.size(); i++) {
+                SplittableRandom random = randomFor(orderIds.get(i), stream);
+                if (i == 0) {
+                    latencyMs = sampleLatencyMs(random);
+                }
+                results.add(random.nextDouble() < failureRate ? GatewayResult.DECLINED : GatewayResult.APPROVED);
+            }
+            long timeoutMs = settings.getTimeoutMs();
+            
+            if (timeoutMs > 0 && latencyMs >= timeoutMs) {
+                pause(timeoutMs);
+                return timedOut(orderIds.size());
+            }
+            if (!pause(latencyMs)) {
+                return timedOut(orderIds.size());
+            }
+            return results;
+        }
+        
+        // Gerador próprio por chamada, derivado de semente e pedido: com semente fixa, cada pedido tem
+        // sempre a mesma latência e o mesmo resultado, qualquer que seja a ordem entre as threads
+        private SplittableRandom randomFor(Long orderId, long stream) {
+            if (settings.getSeed() == null) {
+                return new SplittableRandom();
+            }
+            return new SplittableRandom(settings.getSeed() ^ stream ^ (orderId * 0x9E3779B97F4A7C15L));
+        }
+        
+        private List<GatewayResult> timedOut(int size) {
+            return new ArrayList<>(Collections.nCopies(size, GatewayResult.TIMEOUT));
+        }
+        
+        private long sampleLatencyMs(SplittableRandom random) {
+            switch (settings.getLatencyDistribution()) {
+                case NORMAL:
+                    double sample = settings.getLatencyMs() + random.nextGaussian() * settings.getLatencyStdDevMs();
+                    return Math.max(0, Math.round(sample));
+                case PARETO:
+                    // Inversão da CDF: x = escala / U^(1/forma), com U em (0, 1]
+                    double u = 1.0 - random.nextDouble();
+                    return Math.round(settings.getParetoScaleMs() / Math.pow(u, 1.0 / settings.getParetoShape()));
+                case FIXED:
+                default:
+                    return settings.getLatencyMs();
+            }
+        }
+        
+        private boolean pause(long millis) {
+            if (millis <= 0) {
+                return true;
+            }
+            try {
+                Thread.sleep(millis);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.saga.paymentservice.repository;
+
+import com.saga.paymentservice.entity.ArchivedPayment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedPaymentRepository extends JpaRepository<ArchivedPayment, Long> {
+    Optional<ArchivedPayment> findByOrderId(Long orderId);
+    
+    // Pagamentos PENDING ainda aguardam o gateway e continuam na tabela quente
+    @Modifying
+    @Query("INSERT INTO ArchivedPayment (id, orderId, customerId, amount, status, createdAt, updatedAt, archivedAt) " +
+           "SELECT p.id, p.orderId, p.customerId, p.amount, p.status, p.createdAt, p.updatedAt, :archivedAt " +
+           "FROM Payment p WHERE p.orderId IN :orderIds AND p.status <> com.saga.paymentservice.entity.PaymentStatus.PENDING")
+    int copyFromPayments(@Param("orderIds") Collection<Long> orderIds, @Param("archivedAt") LocalDateTime archivedAt);
+}
@@ -1,12 +1,36 @@
 package com.saga.paymentservice.repository;
 
 import com.saga.paymentservice.entity.Payment;
+import com.saga.paymentservice.entity.PaymentStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Optional<Payment> findByOrderId(Long orderId);
+    List<Payment> findByOrderIdIn(Collection<Long> orderIds);
+    List<Payment> findByStatus(PaymentStatus status);
+    
+    // Transição condicional: só quem ainda encontra o pagamento em 'from' grava o novo status
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :to, p.updatedAt = :now WHERE p.orderId = :orderId AND p.status = :from")
+    int transitionStatus(@Param("orderId") Long orderId,
+                         @Param("from") PaymentStatus from,
+                         @Param("to") PaymentStatus to,
+                         @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("DELETE FROM Payment p WHERE p.orderId IN :orderIds " +
+           "AND p.status <> com.saga.paymentservice.entity.PaymentStatus.PENDING")
+    int deleteArchivableByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
 }
\ No newline at end of file
@@ -0,0 +1,196 @@
+package com.saga.paymentservice.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import com.saga.paymentservice.client.OrderCallbackClient;
+import com.saga.paymentservice.config.AsyncPaymentSettings;
+import com.saga.paymentservice.entity.Payment;
+import com.saga.paymentservice.entity.PaymentStatus;
+import com.saga.paymentservice.gateway.AuthorizationRequest;
+import com.saga.paymentservice.gateway.GatewayResult;
+import com.saga.paymentservice.gateway.PaymentGateway;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class AsyncPaymentService {
+    
+    private final PaymentService paymentService;
+    private final PaymentGateway paymentGateway;
+    private final OrderCallbackClient orderCallbackClient;
+    private final AsyncPaymentSettings settings;
+    private final BlockingQueue<AuthorizationRequest> queue;
+    
+    private ExecutorService workers;
+    private ExecutorService callbacks;
+    private volatile boolean running;
+    
+    public AsyncPaymentService(PaymentService paymentService,
+                               PaymentGateway paymentGateway,
+                               OrderCallbackClient orderCallbackClient,
+                               AsyncPaymentSettings settings) {
+        this.paymentService = paymentService;
+        this.paymentGateway = paymentGateway;
+        this.orderCallbackClient = orderCallbackClient;
+        this.settings = settings;
+        this.queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+    }
+    
+    @PostConstruct
+    void start() {
+        running = true;
+        workers = Executors.newFixedThreadPool(settings.getWorkers(),
+                Thread.ofPlatform().name("payment-authorizer-", 0).factory());
+        // Callbacks em pool próprio: as tentativas e o backoff do OrderCallbackClient não seguram
+        // os workers de autorização nem o ForkJoinPool comum
+        callbacks = Executors.newFixedThreadPool(settings.getCallbackWorkers(),
+                Thread.ofPlatform().name("payment-callback-", 0).factory());
+        for (int i = 0; i < settings.getWorkers(); i++) {
+            workers.execute(this::runWorker);
+        }
+        log.info("Started {} payment authorization workers (batch size {}, queue capacity {})",
+                settings.getWorkers(), settings.getBatchSize(), settings.getQueueCapacity());
+    }
+    
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        workers.shutdownNow();
+        workers.awaitTermination(5, TimeUnit.SECONDS);
+        callbacks.shutdown();
+        if (!callbacks.awaitTermination(5, TimeUnit.SECONDS)) {
+            callbacks.shutdownNow();
+        }
+    }
+    
+    // Pagamentos que ficaram PENDING quando a instância parou voltam para a fila
+    @EventListener(ApplicationReadyEvent.class)
+    public void requeuePendingPayments() throws InterruptedException {
+        List<AuthorizationRequest> pending = paymentService.findPendingAuthorizations();
+        for (AuthorizationRequest request : pending) {
+            // put: na subida vale esperar os workers abrirem espaço em vez de falhar o pagamento
+            queue.put(request);
+        }
+        if (!pending.isEmpty()) {
+            log.info("Re-queued {} pending payments for asynchronous authorization", pending.size());
+        }
+    }
+    
+    public boolean submitPayment(Long orderId, String customerId, BigDecimal amount) {
+        Optional<Payment> existing = paymentService.findPayment(orderId);
+        if (existing.isPresent()) {
+            Payment payment = existing.get();
+            if (payment.getStatus() == PaymentStatus.PENDING) {
+                // Já está na fila: enfileirar de novo mandaria a mesma cobrança duas vezes ao gateway
+                log.info("Payment for order {} is already awaiting authorization", orderId);
+                return true;
+            }
+            // Pagamento já decidido (requisição repetida): reenviar o resultado ao order-service
+            boolean approved = payment.getStatus() == PaymentStatus.COMPLETED;
+            notifyAsync(orderId, approved);
+            return true;
+        }
+        
+        try {
+            paymentService.registerPendingPayment(orderId, customerId, amount);
+        } catch (DataIntegrityViolationException e) {
+            log.info("Payment for order {} was registered by a concurrent request", orderId);
+            return true;
+        }
+        
+        AuthorizationRequest request = new AuthorizationRequest(orderId, customerId, amount);
+        if (!queue.offer(request)) {
+            log.error("Authorization queue full, failing payment for order: {}", orderId);
+            paymentService.completeAuthorizations(List.of(request), List.of(GatewayResult.TIMEOUT));
+            return false;
+        }
+        log.info("Payment for order {} queued for asynchronous authorization", orderId);
+        return true;
+    }
+    
+    public int getQueueDepth() {
+        return queue.size();
+    }
+    
+    private void runWorker() {
+        List<AuthorizationRequest> batch = new ArrayList<>(settings.getBatchSize());
+        while (running) {
+            try {
+                AuthorizationRequest first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, settings.getBatchSize() - 1);
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Error processing authorization batch: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void processBatch(List<AuthorizationRequest> batch) {
+        List<GatewayResult> results;
+        try {
+            results = paymentGateway.authorizeBatch(batch);
+        } catch (Exception e) {
+            log.error("Gateway batch of {} authorizations failed: {}", batch.size(), e.getMessage());
+            results = Collections.nCopies(batch.size(), GatewayResult.TIMEOUT);
+        }
+        
+        Map<Long, Boolean> outcomes = paymentService.completeAuthorizations(batch, results);
+        for (int i = 0; i < batch.size(); i++) {
+            AuthorizationRequest request = batch.get(i);
+            if (results.get(i).isApproved() && !Boolean.TRUE.equals(outcomes.get(request.getOrderId()))) {
+                voidAuthorization(request);
+            }
+        }
+        outcomes.forEach(this::notifyAsync);
+    }
+    
+    private void notifyAsync(Long orderId, boolean approved) {
+        try {
+            callbacks.execute(() -> orderCallbackClient.notifyPaymentResult(orderId, approved));
+        } catch (RejectedExecutionException e) {
+            // Instância parando: a reconciliação do order-service resolve o pedido
+            log.warn("Could not schedule payment callback for order {}: {}", orderId, e.getMessage());
+        }
+    }
+    
+    // O pagamento foi resolvido como falho enquanto o gateway autorizava: desfazer a cobrança
+    private void voidAuthorization(AuthorizationRequest request) {
+        log.warn("Payment for order {} was resolved while authorizing, voiding the authorization", request.getOrderId());
+        try {
+            GatewayResult result = paymentGateway.refund(request.getOrderId(), request.getAmount());
+            if (!result.isApproved()) {
+                log.error("Could not void authorization for order {}: {}", request.getOrderId(), result);
+            }
+        } catch (Exception e) {
+            log.error("Error voiding authorization for order {}: {}", request.getOrderId(), e.getMessage());
+        }
+    }
+}
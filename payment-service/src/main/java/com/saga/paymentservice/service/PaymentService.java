@@ -1,13 +1,24 @@
 package com.saga.paymentservice.service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.saga.paymentservice.entity.ArchivedPayment;
 import com.saga.paymentservice.entity.Payment;
 import com.saga.paymentservice.entity.PaymentStatus;
+import com.saga.paymentservice.gateway.AuthorizationRequest;
+import com.saga.paymentservice.gateway.GatewayResult;
+import com.saga.paymentservice.gateway.PaymentGateway;
+import com.saga.paymentservice.repository.ArchivedPaymentRepository;
 import com.saga.paymentservice.repository.PaymentRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -19,14 +30,18 @@ import lombok.extern.slf4j.Slf4j;
 public class PaymentService {
     
     private final PaymentRepository paymentRepository;
+    private final ArchivedPaymentRepository archivedPaymentRepository;
+    private final PaymentGateway paymentGateway;
+    private final TransactionTemplate transactionTemplate;
     
-    @Transactional
+    // Sem transação em volta do gateway: a latência simulada não pode segurar uma conexão do pool.
+    // Grava PENDING, chama o gateway e registra o resultado em uma segunda transação curta.
     public boolean processPayment(Long orderId, String customerId, BigDecimal amount) {
         log.info("Processing payment for order: {}, customer: {}, amount: {}", orderId, customerId, amount);
         
         try {
             // Verificar se já existe pagamento para esta ordem
-            Optional<Payment> existingPayment = paymentRepository.findByOrderId(orderId);
+            Optional<Payment> existingPayment = findPayment(orderId);
             if (existingPayment.isPresent()) {
                 log.warn("Payment already exists for order: {}", orderId);
                 return existingPayment.get().getStatus() == PaymentStatus.COMPLETED;
@@ -42,20 +57,18 @@ public class PaymentService {
             Payment savedPayment = paymentRepository.save(payment);
             log.info("Payment created with ID: {}", savedPayment.getId());
             
-            // Simular processamento de pagamento
-            boolean paymentSuccessful = simulatePaymentProcessing();
+            AuthorizationRequest request = new AuthorizationRequest(orderId, customerId, amount);
+            GatewayResult result = paymentGateway.authorize(orderId, customerId, amount);
             
-            if (paymentSuccessful) {
-                savedPayment.setStatus(PaymentStatus.COMPLETED);
-                paymentRepository.save(savedPayment);
+            Map<Long, Boolean> outcomes = transactionTemplate.execute(
+                    status -> completeAuthorizations(List.of(request), List.of(result)));
+            boolean approved = Boolean.TRUE.equals(outcomes.get(orderId));
+            if (approved) {
                 log.info("Payment completed for order: {}", orderId);
-                return true;
             } else {
-                savedPayment.setStatus(PaymentStatus.FAILED);
-                paymentRepository.save(savedPayment);
-                log.error("Payment failed for order: {}", orderId);
-                return false;
+                log.error("Payment failed for order: {} - gateway result: {}", orderId, result);
             }
+            return approved;
             
         } catch (Exception e) {
             log.error("Error processing payment for order {}: {}", orderId, e.getMessage());
@@ -63,7 +76,7 @@ public class PaymentService {
         }
     }
     
-    @Transactional
+    // Mesma divisão do processPayment: leitura, gateway fora de transação, gravação condicional
     public boolean refundPayment(Long orderId) {
         log.info("Processing refund for order: {}", orderId);
         
@@ -71,7 +84,11 @@ public class PaymentService {
             Optional<Payment> paymentOptional = paymentRepository.findByOrderId(orderId);
             
             if (!paymentOptional.isPresent()) {
-                log.warn("No payment found for order: {}", orderId);
+                if (archivedPaymentRepository.findByOrderId(orderId).isPresent()) {
+                    log.warn("Cannot refund archived payment for order: {}", orderId);
+                } else {
+                    log.warn("No payment found for order: {}", orderId);
+                }
                 return false;
             }
             
@@ -82,32 +99,115 @@ public class PaymentService {
                 return false;
             }
             
-            // Simular reembolso
-            boolean refundSuccessful = simulateRefundProcessing();
+            GatewayResult result = paymentGateway.refund(orderId, payment.getAmount());
             
-            if (refundSuccessful) {
-                payment.setStatus(PaymentStatus.REFUNDED);
-                paymentRepository.save(payment);
-                log.info("Refund completed for order: {}", orderId);
-                return true;
-            } else {
-                log.error("Refund failed for order: {}", orderId);
+            if (!result.isApproved()) {
+                log.error("Refund failed for order: {} - gateway result: {}", orderId, result);
                 return false;
             }
             
+            if (paymentRepository.transitionStatus(orderId, PaymentStatus.COMPLETED, PaymentStatus.REFUNDED,
+                    LocalDateTime.now()) == 0) {
+                log.warn("Payment for order {} changed while refunding, refund already recorded", orderId);
+                return false;
+            }
+            log.info("Refund completed for order: {}", orderId);
+            return true;
+            
         } catch (Exception e) {
             log.error("Error processing refund for order {}: {}", orderId, e.getMessage());
             return false;
         }
     }
     
-    private boolean simulatePaymentProcessing() {
-        // Simular 90% de sucesso no pagamento
-        return Math.random() > 0.1;
+    // Quem chama verifica antes com findPayment; a unicidade de orderId barra registros concorrentes
+    @Transactional
+    public Payment registerPendingPayment(Long orderId, String customerId, BigDecimal amount) {
+        Payment payment = new Payment();
+        payment.setOrderId(orderId);
+        payment.setCustomerId(customerId);
+        payment.setAmount(amount);
+        payment.setStatus(PaymentStatus.PENDING);
+        
+        Payment savedPayment = paymentRepository.save(payment);
+        log.info("Pending payment created with ID: {}", savedPayment.getId());
+        return savedPayment;
+    }
+    
+    // Gravação condicional PENDING -> COMPLETED/FAILED: se resolvePayment já fechou o pagamento,
+    // o resultado gravado prevalece e o chamador desfaz uma autorização aprovada que chegou tarde
+    @Transactional
+    public Map<Long, Boolean> completeAuthorizations(List<AuthorizationRequest> requests, List<GatewayResult> results) {
+        Map<Long, Boolean> outcomes = new LinkedHashMap<>();
+        List<Long> alreadyDecided = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        
+        for (int i = 0; i < requests.size(); i++) {
+            Long orderId = requests.get(i).getOrderId();
+            GatewayResult result = results.get(i);
+            PaymentStatus decided = result.isApproved() ? PaymentStatus.COMPLETED : PaymentStatus.FAILED;
+            if (paymentRepository.transitionStatus(orderId, PaymentStatus.PENDING, decided, now) == 1) {
+                outcomes.put(orderId, result.isApproved());
+                log.info("Payment for order {} finished with gateway result: {}", orderId, result);
+            } else {
+                alreadyDecided.add(orderId);
+            }
+        }
+        
+        if (!alreadyDecided.isEmpty()) {
+            for (Payment payment : paymentRepository.findByOrderIdIn(alreadyDecided)) {
+                outcomes.put(payment.getOrderId(), payment.getStatus() == PaymentStatus.COMPLETED);
+            }
+            alreadyDecided.stream()
+                    .filter(orderId -> !outcomes.containsKey(orderId))
+                    .forEach(orderId -> log.warn("No payment found for order: {}", orderId));
+        }
+        return outcomes;
+    }
+    
+    // O order-service desistiu de esperar o callback: um PENDING vira FAILED para uma autorização
+    // atrasada não cobrar um pedido já encerrado; pagamentos decididos devolvem o próprio resultado
+    public boolean resolvePayment(Long orderId) {
+        if (paymentRepository.transitionStatus(orderId, PaymentStatus.PENDING, PaymentStatus.FAILED,
+                LocalDateTime.now()) == 1) {
+            log.warn("Pending payment for order {} resolved as failed", orderId);
+            return false;
+        }
+        return findPayment(orderId)
+                .map(payment -> payment.getStatus() == PaymentStatus.COMPLETED)
+                .orElse(false);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<AuthorizationRequest> findPendingAuthorizations() {
+        return paymentRepository.findByStatus(PaymentStatus.PENDING).stream()
+                .map(payment -> new AuthorizationRequest(payment.getOrderId(), payment.getCustomerId(), payment.getAmount()))
+                .toList();
+    }
+    
+    @Transactional
+    public int archivePayments(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        archivedPaymentRepository.copyFromPayments(orderIds, LocalDateTime.now());
+        int archived = paymentRepository.deleteArchivableByOrderIdIn(orderIds);
+        log.info("Archived {} payments for {} orders", archived, orderIds.size());
+        return archived;
+    }
+    
+    // Pagamentos arquivados também contam: o pedido já foi cobrado (ou recusado) antes
+    public Optional<Payment> findPayment(Long orderId) {
+        Optional<Payment> payment = paymentRepository.findByOrderId(orderId);
+        if (payment.isPresent()) {
+            return payment;
+        }
+        return archivedPaymentRepository.findByOrderId(orderId).map(this::toPayment);
     }
     
-    private boolean simulateRefundProcessing() {
-        // Simular 95% de sucesso no reembolso
-        return Math.random() > 0.05;
+    // Cópia não gerenciada, só para leitura do status de um pagamento arquivado
+    private Payment toPayment(ArchivedPayment archived) {
+        return new Payment(archived.getId(), archived.getOrderId(), archived.getCustomerId(), archived.getAmount(),
+                archived.getStatus(), archived.getCreatedAt(), archived.getUpdatedAt());
     }
 }
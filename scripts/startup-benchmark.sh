@@ -0,0 +1,91 @@
+#!/usr/bin/env bash
+#
+# Mede o tempo até o primeiro pedido bem-sucedido (status COMPLETED) a partir do
+# momento em que os três serviços são iniciados.
+#
+# Uso:
+#   ./scripts/startup-benchmark.sh standard     # jars Spring Boot comuns
+#   ./scripts/startup-benchmark.sh fast-start   # AOT + CDS (requer mvn -Pfast-start package)
+#
+# Antes, em cada serviço: mvn -Pfast-start package (gera os dois artefatos).
+
+set -euo pipefail
+
+MODE="${1:-fast-start}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+SERVICES=(order-service payment-service inventory-service)
+PIDS=()
+
+cleanup() {
+    for pid in "${PIDS[@]}"; do
+        kill "$pid" 2>/dev/null || true
+    done
+    wait 2>/dev/null || true
+}
+trap cleanup EXIT
+
+now_ms() {
+    date +%s%3N
+}
+
+start_service() {
+    local service="$1"
+    local log="$ROOT/$service/target/startup-benchmark.log"
+
+    case "$MODE" in
+        standard)
+            java -jar "$ROOT/$service/target/$service-1.0.0.jar" > "$log" 2>&1 &
+            ;;
+        fast-start)
+            (cd "$ROOT/$service/target/fast-start" && exec java \
+                -XX:SharedArchiveFile=application.jsa \
+                -Dspring.aot.enabled=true \
+                -Dspring.profiles.active=prod \
+                -jar "$service-1.0.0-fast-start.jar") > "$log" 2>&1 &
+            ;;
+        *)
+            echo "Modo desconhecido: $MODE (use standard ou fast-start)" >&2
+            exit 1
+            ;;
+    esac
+    PIDS+=($!)
+}
+
+START=$(now_ms)
+for service in "${SERVICES[@]}"; do
+    start_service "$service"
+done
+
+ATTEMPT=0
+ORDER_ID=""
+while true; do
+    if (( $(now_ms) - START > 120000 )); then
+        echo "Nenhum pedido concluído em 120s; veja target/startup-benchmark.log de cada serviço" >&2
+        exit 1
+    fi
+
+    if [[ -z "$ORDER_ID" ]]; then
+        ATTEMPT=$((ATTEMPT + 1))
+        # customerId diferente a cada tentativa para não esbarrar no limite de taxa por cliente
+        RESPONSE=$(curl -s -X POST http://localhost:8080/api/orders \
+            -H "Content-Type: application/json" \
+            -d "{\"customerId\": \"BENCH-$ATTEMPT\", \"productId\": \"PROD-003\", \"quantity\": 1, \"totalAmount\": 299.99}" \
+            2>/dev/null || true)
+        ORDER_ID=$(sed -n 's/.*"id":\([0-9]*\).*/\1/p' <<< "$RESPONSE")
+    else
+        # O POST responde antes de a SAGA terminar: o status final é consultado depois
+        RESPONSE=$(curl -s "http://localhost:8080/api/orders/$ORDER_ID" 2>/dev/null || true)
+        case "$RESPONSE" in
+            *'"status":"COMPLETED"'*)
+                break
+                ;;
+            *'"status":"PAYMENT_FAILED"'* | *'"status":"INVENTORY_FAILED"'* | *'"status":"CANCELLED"'*)
+                ORDER_ID=""
+                ;;
+        esac
+    fi
+    sleep 0.05
+done
+
+ELAPSED=$(( $(now_ms) - START ))
+echo "mode=$MODE time_to_first_successful_order_ms=$ELAPSED attempts=$ATTEMPT"